@@ -0,0 +1,70 @@
+package io.arusland.text.benchmark;
+
+import io.arusland.text.markov.Generator;
+import io.arusland.text.markov.WordParser;
+import io.arusland.text.markov.Wordogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Texts per second of one {@link Generator} shared by 1, 2 and 4 threads, with thread local
+ * or secure randoms, so scaling of concurrent generation is seen by comparing the methods.
+ *
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConcurrentGenerateBenchmark {
+    private static final int LENGTH = 140;
+    @Param({"SMALL", "MEDIUM"})
+    public CorpusSize corpus;
+    @Param({"false", "true"})
+    public boolean secure;
+    private Generator generator;
+
+    @Setup
+    public void setUp() {
+        Wordogram wordogram = new Wordogram(2);
+        Map<String, String> names = new HashMap<>();
+        new WordParser().parse(corpus.getText(), names, new HashMap<>()).forEach(wordogram::addNext);
+        generator = secure
+                ? new Generator(wordogram.toModel(names), Generator.secureRandoms())
+                : new Generator(wordogram.toModel(names));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String oneThread() {
+        return generator.generate(LENGTH);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public String twoThreads() {
+        return generator.generate(LENGTH);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String fourThreads() {
+        return generator.generate(LENGTH);
+    }
+}
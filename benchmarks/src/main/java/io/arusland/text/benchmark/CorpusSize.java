@@ -0,0 +1,83 @@
+package io.arusland.text.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Sizes of synthetic Russian corpora, every corpus is generated deterministically from a fixed seed.
+ *
+ * @since 2026-10-18
+ */
+public enum CorpusSize {
+    SMALL(256 * 1024, 2000),
+    MEDIUM(4 * 1024 * 1024, 20000),
+    LARGE(32 * 1024 * 1024, 100000);
+
+    private static final long SEED = 20170307L;
+    private static final String[] SYLLABLES = {"по", "ка", "ра", "ни", "то", "ле", "ми", "до", "ве", "сна",
+            "жи", "ру", "чё", "ско", "вал", "ной", "мы", "ше", "ть", "зо", "ли", "ко", "ба", "ян", "ст", "пре"};
+    private static final String[] SEPARATORS = {" ", " ", " ", " ", " ", " ", ", ", " — ", ". ", ". ", "! ",
+            "? ", ": ", "…\n", ".\n"};
+    private final int charCount;
+    private final int vocabularySize;
+    private String text;
+
+    CorpusSize(int charCount, int vocabularySize) {
+        this.charCount = charCount;
+        this.vocabularySize = vocabularySize;
+    }
+
+    public synchronized String getText() {
+        if (text == null) {
+            text = generate();
+        }
+
+        return text;
+    }
+
+    private String generate() {
+        Random random = new Random(SEED + ordinal());
+        String[] words = new String[vocabularySize];
+
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + random.nextInt(4);
+
+            for (int j = 0; j < syllables; j++) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+
+            // every 50th word is a name
+            words[i] = i % 50 == 49 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word.toString();
+        }
+
+        // Zipf-like frequencies: word i is met about 1/(i+1) times as often as the first one
+        double[] cumulative = new double[words.length];
+        double total = 0;
+
+        for (int i = 0; i < words.length; i++) {
+            total += 1.0 / (i + 1);
+            cumulative[i] = total;
+        }
+
+        StringBuilder sb = new StringBuilder(charCount + 64);
+        boolean sentenceStart = true;
+
+        while (sb.length() < charCount) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            String word = words[index < 0 ? Math.min(-index - 1, words.length - 1) : index];
+
+            if (sentenceStart) {
+                sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                sb.append(word);
+            }
+
+            String separator = SEPARATORS[random.nextInt(SEPARATORS.length)];
+            sb.append(separator);
+            sentenceStart = separator.charAt(0) != ' ' && separator.charAt(0) != ',';
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package io.arusland.text.benchmark;
+
+import io.arusland.text.markov.ChainModel;
+import io.arusland.text.markov.Storage;
+import io.arusland.text.markov.WordParser;
+import io.arusland.text.markov.Wordogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Trains a wordogram in the given storage, compiles its model and keeps both alive while
+ * forcing full collections, then prints heap used by them and pause of every full collection.
+ * Run it with both storages and a GC log to compare:
+ * <pre>
+ * java -Xmx8g -Xlog:gc -cp target/benchmarks.jar io.arusland.text.benchmark.GcPauseTest [heap|offheap] [order] [copies]
+ * </pre>
+ * The LARGE synthetic corpus is parsed the given count of copies, a copy adds new transitions
+ * as its words are suffixed with the copy number.
+ *
+ * @since 2026-10-18
+ */
+public class GcPauseTest {
+    private static final int COLLECTIONS = 5;
+
+    public static void main(String[] args) {
+        Storage storage = args.length > 0 ? Storage.parse(args[0]) : Storage.getDefault();
+        int order = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int copies = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        Wordogram wordogram = new Wordogram(order, storage);
+        Map<String, String> names = new HashMap<>();
+        long startTime = System.nanoTime();
+
+        for (int copy = 0; copy < copies; copy++) {
+            String suffix = copy > 0 ? String.valueOf(copy) : "";
+            new WordParser().parse(CorpusSize.LARGE.getText(), names, new HashMap<>()).forEach(word ->
+                    wordogram.addNext(Wordogram.TOKEN_END.equals(word) ? word : word + suffix));
+        }
+
+        ChainModel model = wordogram.toModel(names);
+
+        System.out.println(String.format("%s storage, order %d: %d transitions, %d contexts, trained in %.1f s",
+                storage, order, wordogram.getTransitionCount(), wordogram.getContextCount(),
+                (System.nanoTime() - startTime) / 1e9));
+        System.out.println(String.format("wordogram %d MB, model %d MB", wordogram.getMemoryUsage() >> 20,
+                model.sizeInBytes() >> 20));
+
+        for (int i = 0; i < COLLECTIONS; i++) {
+            long collectionTime = getCollectionTime();
+            long start = System.nanoTime();
+            System.gc();
+            long pause = System.nanoTime() - start;
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+
+            System.out.println(String.format("full gc %d: %.1f ms (collectors %d ms), heap used %d MB", i + 1,
+                    pause / 1e6, getCollectionTime() - collectionTime, heap.getUsed() >> 20));
+        }
+
+        // both must stay reachable during the collections
+        System.out.println("words: " + wordogram.getVocabulary().size() + ", states: " + model.getStateCount());
+    }
+
+    private static long getCollectionTime() {
+        long time = 0;
+
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(0, collector.getCollectionTime());
+        }
+
+        return time;
+    }
+}
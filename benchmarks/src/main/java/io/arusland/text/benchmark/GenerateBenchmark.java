@@ -0,0 +1,127 @@
+package io.arusland.text.benchmark;
+
+import io.arusland.text.markov.GenerationOptions;
+import io.arusland.text.markov.Generator;
+import io.arusland.text.markov.WordParser;
+import io.arusland.text.markov.Wordogram;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speed of {@link Generator#generate(GenerationOptions)} and {@link Generator#generateBatch}
+ * in smart and simple next word modes, the <code>words</code> counter is generated words per second.
+ *
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GenerateBenchmark {
+    private static final int BATCH_SIZE = 1000;
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public CorpusSize corpus;
+    @Param({"1", "3"})
+    public int order;
+    @Param({"true", "false"})
+    public boolean smart;
+    private Generator generator;
+    private GenerationOptions options;
+
+    @Setup
+    public void setUp() {
+        Wordogram wordogram = new Wordogram(order);
+        Map<String, String> names = new HashMap<>();
+        new WordParser().parse(corpus.getText(), names, new HashMap<>()).forEach(wordogram::addNext);
+        generator = new Generator(wordogram.toModel(names));
+        options = new GenerationOptions(1000, null, smart);
+    }
+
+    @Benchmark
+    public String generate(Counters counters) {
+        String text = generator.generate(options);
+        int words = 1;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ' ') {
+                words++;
+            }
+        }
+
+        counters.words += words;
+
+        return text;
+    }
+
+    @Benchmark
+    public void generateBatch(Counters counters) throws IOException {
+        CountingWriter writer = new CountingWriter();
+        generator.generateBatch(options, BATCH_SIZE, writer);
+        counters.words += writer.spaces + BATCH_SIZE;
+    }
+
+    /**
+     * Counts spaces instead of writing, so the batch is measured without I/O.
+     */
+    private static class CountingWriter extends Writer {
+        long spaces;
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (chars[i] == ' ') {
+                    spaces++;
+                }
+            }
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            for (int i = 0; i < csq.length(); i++) {
+                if (csq.charAt(i) == ' ') {
+                    spaces++;
+                }
+            }
+
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long words;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            words = 0;
+        }
+    }
+}
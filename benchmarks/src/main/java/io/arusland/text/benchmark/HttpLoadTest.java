@@ -0,0 +1,140 @@
+package io.arusland.text.benchmark;
+
+import io.arusland.text.markov.ChainModel;
+import io.arusland.text.markov.LatencyHistogram;
+import io.arusland.text.markov.WordParser;
+import io.arusland.text.markov.Wordogram;
+import io.arusland.text.server.GenerationServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed loop load test of the HTTP service: every client sends the next request as soon as
+ * the previous one is answered, the count of clients is doubled from 1 to the maximum
+ * and requests per second with p50 and p99 latency are printed for every count.
+ * <p>
+ * Without a URL or with "-" the service is started in this process over the MEDIUM synthetic corpus.
+ * <pre>
+ * java -cp target/benchmarks.jar io.arusland.text.benchmark.HttpLoadTest [url|-] [max_clients] [seconds]
+ * </pre>
+ *
+ * @since 2026-10-18
+ */
+public class HttpLoadTest {
+    private static final String DEFAULT_PATH = "/generate?max=140";
+    private static final int DEFAULT_MAX_CLIENTS = 64;
+    private static final int DEFAULT_SECONDS = 5;
+    private static final int WARMUP_SECONDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 && !"-".equals(args[0]) ? args[0] : null;
+        int maxClients = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_CLIENTS;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SECONDS;
+        GenerationServer server = null;
+
+        if (url == null) {
+            Wordogram wordogram = new Wordogram();
+            Map<String, String> names = new HashMap<>();
+            new WordParser().parse(CorpusSize.MEDIUM.getText(), names, new HashMap<>()).forEach(wordogram::addNext);
+            ChainModel model = wordogram.toModel(names);
+            server = new GenerationServer(() -> model, Runtime.getRuntime().availableProcessors());
+            server.start(0);
+            url = "http://localhost:" + server.getPort() + DEFAULT_PATH;
+        }
+
+        try {
+            System.out.println("Target " + url);
+            run(new URL(url), 1, WARMUP_SECONDS);
+            System.out.println(String.format("%8s %12s %10s %10s %8s", "clients", "requests/s", "p50 us", "p99 us",
+                    "errors"));
+
+            for (int clients = 1; clients <= maxClients; clients <<= 1) {
+                Result result = run(new URL(url), clients, seconds);
+                System.out.println(String.format("%8d %12.0f %10d %10d %8d", clients,
+                        result.requests.get() / (double) seconds, result.latency.getPercentile(50) / 1000,
+                        result.latency.getPercentile(99) / 1000, result.errors.get()));
+            }
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+        }
+    }
+
+    private static Result run(URL url, int clients, int seconds) throws Exception {
+        Result result = new Result();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    byte[] buffer = new byte[8192];
+
+                    while (running.get()) {
+                        long startTime = System.nanoTime();
+
+                        if (request(url, buffer)) {
+                            result.latency.record(System.nanoTime() - startTime);
+                            result.requests.incrementAndGet();
+                        } else {
+                            result.errors.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+
+            TimeUnit.SECONDS.sleep(seconds);
+            running.set(false);
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return result;
+    }
+
+    /**
+     * Sends the request reading the whole response, so the connection is reused by the next request.
+     */
+    private static boolean request(URL url, byte[] buffer) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            int status = connection.getResponseCode();
+
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                while (in != null && in.read(buffer) > 0) {
+                    // skip the body
+                }
+            }
+
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static class Result {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+    }
+}
@@ -0,0 +1,111 @@
+package io.arusland.text.benchmark;
+
+import io.arusland.text.markov.ChainModel;
+import io.arusland.text.markov.ChainWalk;
+import io.arusland.text.markov.GenerationOptions;
+import io.arusland.text.markov.Generator;
+import io.arusland.text.markov.Metrics;
+import io.arusland.text.markov.StopCondition;
+import io.arusland.text.markov.WordParser;
+import io.arusland.text.markov.Wordogram;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares ways to get a text ending with a sentence between min and max chars, for every window prints
+ * candidates generated per accepted text and microseconds per accepted text:
+ * <ul>
+ * <li>retry - texts are cut at max length like by {@link Generator#generate(int)} and generated again
+ * till one ends with a sentence not shorter than min</li>
+ * <li>first end - texts end with the first sentence not shorter than min and are generated again
+ * when they go beyond max</li>
+ * <li>steered - {@link Generator#generate(GenerationOptions)} with {@link GenerationOptions#withCharCountMin}</li>
+ * </ul>
+ * <pre>
+ * java -cp target/benchmarks.jar io.arusland.text.benchmark.LengthWindowTest [SMALL|MEDIUM|LARGE] [order] [texts]
+ * </pre>
+ *
+ * @since 2026-10-18
+ */
+public class LengthWindowTest {
+    private static final int[][] WINDOWS = {{20, 40}, {60, 80}, {100, 140}, {130, 140}, {250, 280}};
+    private static final int DEFAULT_TEXT_COUNT = 20000;
+
+    public static void main(String[] args) {
+        CorpusSize corpus = args.length > 0 ? CorpusSize.valueOf(args[0]) : CorpusSize.MEDIUM;
+        int order = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int textCount = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TEXT_COUNT;
+        Wordogram wordogram = new Wordogram(order);
+        Map<String, String> names = new HashMap<>();
+        new WordParser().parse(corpus.getText(), names, new HashMap<>()).forEach(wordogram::addNext);
+        ChainModel model = wordogram.toModel(names);
+        Generator generator = new Generator(model);
+
+        long startTime = System.nanoTime();
+        model.getSentenceLengths();
+        System.out.println(String.format("%s corpus, order %d, sentence lengths solved in %.1f ms", corpus, order,
+                (System.nanoTime() - startTime) / 1e6));
+        System.out.println(String.format("%-10s %22s %22s %22s", "window", "retry", "first end", "steered"));
+
+        Metrics.global().setEnabled(true);
+
+        for (int pass = 0; pass < 2; pass++) {
+            // the first pass warms up
+            for (int[] window : WINDOWS) {
+                String retry = measure(generator, window[0], window[1], textCount, true);
+                String firstEnd = measure(generator, window[0], window[1], textCount, false);
+                String steered = measureSteered(generator, window[0], window[1], textCount);
+
+                if (pass > 0) {
+                    System.out.println(String.format("%-10s %22s %22s %22s", window[0] + "-" + window[1],
+                            retry, firstEnd, steered));
+                }
+            }
+        }
+    }
+
+    private static String measure(Generator generator, int min, int max, int textCount, boolean cutAtMax) {
+        GenerationOptions options = new GenerationOptions(max);
+        long candidates = 0;
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < textCount; i++) {
+            do {
+                candidates++;
+            } while (!isAccepted(generator.walk(options, StopCondition.maxChars(max)), min, cutAtMax));
+        }
+
+        return format(candidates / (double) textCount, System.nanoTime() - startTime, textCount);
+    }
+
+    private static boolean isAccepted(ChainWalk walk, int min, boolean cutAtMax) {
+        int lastId = -1;
+
+        while (walk.hasNext()) {
+            lastId = walk.nextInt();
+
+            if (!cutAtMax && lastId == Wordogram.END_ID && walk.getCharCount() >= min) {
+                return true;
+            }
+        }
+
+        return lastId == Wordogram.END_ID && walk.getCharCount() >= min;
+    }
+
+    private static String measureSteered(Generator generator, int min, int max, int textCount) {
+        GenerationOptions options = new GenerationOptions(max).withCharCountMin(min);
+        Metrics.global().reset();
+        long startTime = System.nanoTime();
+
+        for (int i = 0; i < textCount; i++) {
+            generator.generate(options);
+        }
+
+        return format(Metrics.global().getCandidatesPerConstrainedText(), System.nanoTime() - startTime, textCount);
+    }
+
+    private static String format(double candidates, long nanos, int textCount) {
+        return String.format("%6.2f cand %7.1f us", candidates, nanos / 1e3 / textCount);
+    }
+}
@@ -0,0 +1,79 @@
+package io.arusland.text.benchmark;
+
+import io.arusland.text.markov.WordParser;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link WordParser}, the <code>megabytes</code> counter is MB/s of parsed UTF-8 text.
+ *
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public CorpusSize corpus;
+    private String text;
+    private byte[] bytes;
+    private final WordParser parser = new WordParser();
+
+    @Setup
+    public void setUp() {
+        text = corpus.getText();
+        bytes = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<String> parseString(Counters counters) {
+        counters.megabytes += bytes.length / 1e6;
+
+        return parser.parse(text, new HashMap<>(), new HashMap<>());
+    }
+
+    @Benchmark
+    public void parseChannel(Counters counters, Blackhole blackhole) throws IOException {
+        counters.megabytes += bytes.length / 1e6;
+        Map<String, Integer> stats = new HashMap<>();
+
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(bytes)), new HashMap<>(), stats,
+                blackhole::consume);
+        blackhole.consume(stats);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+}
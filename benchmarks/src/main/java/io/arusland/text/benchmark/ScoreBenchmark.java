@@ -0,0 +1,88 @@
+package io.arusland.text.benchmark;
+
+import io.arusland.text.markov.ChainModel;
+import io.arusland.text.markov.Generator;
+import io.arusland.text.markov.Scorer;
+import io.arusland.text.markov.TextScore;
+import io.arusland.text.markov.WordParser;
+import io.arusland.text.markov.Wordogram;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speed of {@link Scorer} over a batch of texts generated from the model,
+ * the <code>tokens</code> counter is scored words and ends of sentences per second.
+ *
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScoreBenchmark {
+    private static final int BATCH_SIZE = 1000;
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public CorpusSize corpus;
+    @Param({"1", "3"})
+    public int order;
+    @Param({"1", "4"})
+    public int threads;
+    private Scorer scorer;
+    private List<String> texts;
+
+    @Setup
+    public void setUp() {
+        Wordogram wordogram = new Wordogram(order);
+        Map<String, String> names = new HashMap<>();
+        new WordParser().parse(corpus.getText(), names, new HashMap<>()).forEach(wordogram::addNext);
+        ChainModel model = wordogram.toModel(names);
+        Generator generator = new Generator(model);
+        scorer = new Scorer(model);
+        texts = new ArrayList<>();
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            texts.add(generator.generate(280));
+        }
+    }
+
+    @Benchmark
+    public List<TextScore> score(Counters counters) {
+        List<TextScore> scores = scorer.score(texts, threads);
+
+        for (TextScore score : scores) {
+            counters.tokens += score.getTokenCount();
+        }
+
+        return scores;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long tokens;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+        }
+    }
+}
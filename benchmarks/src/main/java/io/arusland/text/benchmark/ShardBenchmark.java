@@ -0,0 +1,81 @@
+package io.arusland.text.benchmark;
+
+import io.arusland.text.markov.GenerationOptions;
+import io.arusland.text.markov.WordParser;
+import io.arusland.text.shard.ShardedModel;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Trains a {@link ShardedModel} over local worker processes and generates batches of texts from it,
+ * the count of shards is doubled from 1 to the maximum and words per second of training
+ * and generation are printed for every count.
+ * <pre>
+ * java -cp target/benchmarks.jar io.arusland.text.benchmark.ShardBenchmark [SMALL|MEDIUM|LARGE] [order] [max_shards] [seconds]
+ * </pre>
+ *
+ * @since 2026-10-18
+ */
+public class ShardBenchmark {
+    private static final int BATCH_SIZE = 256;
+    private static final int TEXT_LENGTH = 140;
+    private static final int DEFAULT_MAX_SHARDS = 4;
+    private static final int DEFAULT_SECONDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        CorpusSize corpus = args.length > 0 ? CorpusSize.valueOf(args[0]) : CorpusSize.MEDIUM;
+        int order = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int maxShards = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_SHARDS;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_SECONDS;
+        List<String> words = new WordParser().parse(corpus.getText(), new HashMap<>(), new HashMap<>());
+        List<GenerationOptions> batch = Collections.nCopies(BATCH_SIZE, new GenerationOptions(TEXT_LENGTH));
+
+        System.out.println(String.format("%s corpus, order %d, %d words", corpus, order, words.size()));
+        System.out.println(String.format("%-7s %14s %12s %14s %14s", "shards", "train words/s", "compile ms",
+                "texts/s", "gen words/s"));
+
+        for (int shardCount = 1; shardCount <= maxShards; shardCount *= 2) {
+            try (ShardedModel model = ShardedModel.startLocal(shardCount, order)) {
+                long startTime = System.nanoTime();
+
+                for (String word : words) {
+                    model.addNext(word);
+                }
+
+                long trainTime = System.nanoTime() - startTime;
+                startTime = System.nanoTime();
+                model.compile();
+                long compileTime = System.nanoTime() - startTime;
+
+                // the first second warms up the workers
+                generate(model, batch, 1);
+
+                startTime = System.nanoTime();
+                long[] counts = generate(model, batch, seconds);
+                double elapsed = (System.nanoTime() - startTime) / 1e9;
+
+                System.out.println(String.format("%-7d %14.0f %12.1f %14.0f %14.0f", shardCount,
+                        words.size() / (trainTime / 1e9), compileTime / 1e6, counts[0] / elapsed, counts[1] / elapsed));
+            }
+        }
+    }
+
+    /**
+     * Generates batches for the seconds, returns count of texts and words.
+     */
+    private static long[] generate(ShardedModel model, List<GenerationOptions> batch, int seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long[] counts = new long[2];
+
+        while (System.nanoTime() < deadline) {
+            for (String text : model.generate(batch)) {
+                counts[0]++;
+                counts[1] += text.split(" ").length;
+            }
+        }
+
+        return counts;
+    }
+}
@@ -0,0 +1,68 @@
+package io.arusland.text.benchmark;
+
+import io.arusland.text.markov.WordParser;
+import io.arusland.text.markov.Wordogram;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Speed of {@link Wordogram#addNext(String)}, the <code>words</code> counter is insertions per second.
+ *
+ * @since 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TrainBenchmark {
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public CorpusSize corpus;
+    @Param({"1", "3"})
+    public int order;
+    private String[] words;
+
+    @Setup
+    public void setUp() {
+        words = new WordParser().parse(corpus.getText(), new HashMap<>(), new HashMap<>()).toArray(new String[0]);
+    }
+
+    @Benchmark
+    public Wordogram addNext(Counters counters) {
+        Wordogram wordogram = new Wordogram(order);
+
+        for (String word : words) {
+            wordogram.addNext(word);
+        }
+
+        counters.words += words.length;
+
+        return wordogram;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long words;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            words = 0;
+        }
+    }
+}
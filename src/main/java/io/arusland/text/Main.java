@@ -1,14 +1,44 @@
 package io.arusland.text;
 
+import io.arusland.text.markov.Alphabet;
+import io.arusland.text.markov.ChainModel;
+import io.arusland.text.markov.CorpusLoader;
+import io.arusland.text.markov.GenerationOptions;
 import io.arusland.text.markov.Generator;
+import io.arusland.text.markov.Metrics;
+import io.arusland.text.markov.ModelSnapshot;
+import io.arusland.text.markov.OnlineModel;
+import io.arusland.text.markov.PruneOptions;
+import io.arusland.text.markov.Scorer;
+import io.arusland.text.markov.SeedIndex;
+import io.arusland.text.markov.SentenceFilter;
+import io.arusland.text.markov.StatsIndex;
+import io.arusland.text.markov.Storage;
+import io.arusland.text.markov.TextScore;
 import io.arusland.text.markov.WordParser;
 import io.arusland.text.markov.Wordogram;
+import io.arusland.text.server.GenerationServer;
 import org.apache.commons.lang3.StringUtils;
 
+import javax.management.JMException;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.Console;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,12 +46,29 @@ import java.util.stream.Collectors;
  * Created by ruslan on 07.01.2017.
  */
 public class Main {
-    private final Wordogram wordogram = new Wordogram();
+    private static final long PUBLISH_INTERVAL_MILLIS = 1000;
+    private static final long TAIL_POLL_MILLIS = 500;
+    private static final int TAIL_CHUNK_SIZE = 1 << 20;
+    private static final int SCORE_CHUNK_SIZE = 64 * 1024;
+    private static final int SCORE_WORST_COUNT = 10;
+    private static final int STATS_PAGE_SIZE = 20;
+    private final OnlineModel online = new OnlineModel(new Wordogram(), PUBLISH_INTERVAL_MILLIS);
     private final WordParser parser = new WordParser();
-    private final Map<String, String> names = new HashMap<>();
-    private final Map<String, Integer> stats = new HashMap<>();
-    private Generator generator;
+    private volatile ModelSnapshot snapshot;
+    private volatile Generator generator;
+    private Scorer scorer;
+    private Thread tailThread;
+    private GenerationServer server;
+    /**
+     * Memory used by the wordogram before the first pruning or 0 if it was not pruned.
+     */
+    private long memoryBeforePrune;
     private boolean propertySmartNextWord = true;
+    private boolean propertySecureRandom;
+    private int propertyLoadThreads = Runtime.getRuntime().availableProcessors();
+    private int propertyGenThreads = Runtime.getRuntime().availableProcessors();
+    private long propertyDedupMemory;
+    private int propertyDedupMinWords = SentenceFilter.DEFAULT_MIN_WORDS;
 
     public static void main(String args[]) throws IOException {
         new Main().run(args);
@@ -30,14 +77,49 @@ public class Main {
     private void run(String[] args) throws IOException {
         System.out.println("Markov chain based text generator v1.0");
         System.out.println("Type 'h' for help");
-        Console console = System.console();
+        online.start();
+        Metrics.global().setEnabled(true);
+        Metrics.global().setModels(this::getModel);
 
-        if (args.length > 0) {
-            handleCommand(Arrays.asList("load", args[0]));
+        try {
+            Metrics.global().register();
+        } catch (JMException e) {
+            System.out.println("ERROR: metrics are not available via JMX - " + e.getMessage());
         }
 
+        List<String> serveCommand = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--serve".equals(args[i]) && i + 1 < args.length) {
+                serveCommand = Arrays.asList("serve", args[++i]);
+            } else {
+                handleCommand(Arrays.asList("load", args[i]));
+            }
+        }
+
+        if (serveCommand != null) {
+            handleCommand(serveCommand);
+        }
+
+        Console console = System.console();
+        // without a terminal, e.g. under nohup or with redirected input, commands are read from stdin
+        BufferedReader reader = console == null
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : null;
+
         while (true) {
-            String line = console.readLine();
+            String line;
+
+            try {
+                line = console != null ? console.readLine() : reader.readLine();
+            } catch (IOException e) {
+                line = null;
+            }
+
+            if (line == null) {
+                // no more commands, a started server keeps the process running
+                return;
+            }
 
             List<String> cmd = Arrays.stream(line.split("\\s+"))
                     .filter(p -> StringUtils.isNoneBlank(p))
@@ -65,8 +147,24 @@ public class Main {
                 printStats(cmd);
             } else if ("gen".equals(command)) {
                 generateText(cmd);
+            } else if ("top".equals(command)) {
+                printTop(cmd);
+            } else if ("score".equals(command)) {
+                scoreFile(cmd);
             } else if ("load".equals(command)) {
                 loadFile(cmd.get(1));
+            } else if ("save".equals(command)) {
+                saveSnapshot(cmd.get(1));
+            } else if ("open".equals(command)) {
+                openSnapshot(cmd.get(1));
+            } else if ("tail".equals(command)) {
+                tailFile(cmd.get(1));
+            } else if ("serve".equals(command)) {
+                serve(cmd.get(1));
+            } else if ("metrics".equals(command)) {
+                printMetrics(cmd);
+            } else if ("prune".equals(command)) {
+                prune(cmd);
             } else if ("clear".equals(command)) {
                 clear();
             } else if ("set".equals(command)) {
@@ -82,14 +180,37 @@ public class Main {
         return true;
     }
 
-    private void setProperty(List<String> cmd) {
+    private void setProperty(List<String> cmd) throws IOException {
         if (cmd.size() >= 3) {
             String property = cmd.get(1);
             String value = cmd.get(2);
 
             if ("nextword.smart".equals(property)) {
                 propertySmartNextWord = Boolean.parseBoolean(value);
-                getGenerator().setUseSmartNextWord(propertySmartNextWord);
+            } else if ("random.secure".equals(property)) {
+                propertySecureRandom = Boolean.parseBoolean(value);
+                generator = null;
+            } else if ("load.threads".equals(property)) {
+                propertyLoadThreads = Integer.parseInt(value);
+            } else if ("metrics.enabled".equals(property)) {
+                Metrics.global().setEnabled(Boolean.parseBoolean(value));
+            } else if ("gen.threads".equals(property)) {
+                propertyGenThreads = Integer.parseInt(value);
+            } else if ("alphabet".equals(property)) {
+                parser.setAlphabet(Alphabet.parse(value));
+            } else if ("dedup.memory".equals(property)) {
+                propertyDedupMemory = Long.parseLong(value);
+                resetSentenceFilter();
+            } else if ("dedup.min.words".equals(property)) {
+                propertyDedupMinWords = Integer.parseInt(value);
+                resetSentenceFilter();
+            } else if ("order".equals(property)) {
+                int order = Integer.parseInt(value);
+                online.update(wordogram -> {
+                    wordogram.setOrder(order);
+                    return null;
+                });
+                online.publish();
             } else {
                 throw new RuntimeException("Unknown property: " + property);
             }
@@ -100,125 +221,617 @@ public class Main {
         }
     }
 
-    private void clear() {
-        wordogram.clear();
-        names.clear();
-        generator = null;
+    private void clear() throws IOException {
+        clearBuffers();
         System.out.println("All buffers are cleared.");
     }
 
-    private void generateText(List<String> cmd) {
+    private void clearBuffers() throws IOException {
+        stopTail();
+        online.update(wordogram -> {
+            wordogram.clear();
+            return null;
+        });
+        online.publish();
+        snapshot = null;
+        generator = null;
+        memoryBeforePrune = 0;
+        resetSentenceFilter();
+    }
+
+    /**
+     * Replaces the filter of seen sentences with an empty one of the configured size.
+     */
+    private void resetSentenceFilter() {
+        parser.setSentenceFilter(propertyDedupMemory > 0
+                ? new SentenceFilter(propertyDedupMemory << 20, propertyDedupMinWords)
+                : null);
+    }
+
+    private void prune(List<String> cmd) throws IOException {
+        if (snapshot != null) {
+            throw new RuntimeException("Opened snapshot is read-only, use 'clear' before pruning.");
+        }
+
+        PruneOptions options = new PruneOptions(Integer.parseInt(cmd.get(1)),
+                cmd.size() > 2 ? Integer.parseInt(cmd.get(2)) : 0,
+                cmd.size() > 3 ? Integer.parseInt(cmd.get(3)) : 0);
+        long startTime = System.currentTimeMillis();
+
+        long[] memory = online.update(wordogram -> {
+            long before = wordogram.getMemoryUsage();
+            wordogram.prune(options);
+
+            return new long[]{before, wordogram.getMemoryUsage()};
+        });
+
+        online.publish();
+
+        if (memoryBeforePrune == 0) {
+            memoryBeforePrune = memory[0];
+        }
+
+        System.out.println("Pruned in " + (System.currentTimeMillis() - startTime) + " ms");
+        System.out.println("memory      : " + memory[0] + " -> " + memory[1] + " bytes");
+        printStats(Collections.emptyList());
+    }
+
+    private void generateText(List<String> cmd) throws IOException {
         Generator generator = getGenerator();
 
-        String firstWord = cmd.size() >= 3 ? cmd.get(2) : null;
-        String text = generator.generate(Integer.parseInt(cmd.get(1)), firstWord);
+        String firstWord = null;
+        int count = 0;
+        String outFileName = null;
+        boolean around = false;
+        int charCountMin = 0;
+
+        for (int i = 2; i < cmd.size(); i++) {
+            if ("--count".equals(cmd.get(i))) {
+                count = Integer.parseInt(cmd.get(++i));
+            } else if ("--out".equals(cmd.get(i))) {
+                outFileName = cmd.get(++i);
+            } else if ("--min".equals(cmd.get(i))) {
+                charCountMin = Integer.parseInt(cmd.get(++i));
+            } else if ("--around".equals(cmd.get(i))) {
+                around = true;
+            } else {
+                firstWord = firstWord == null ? cmd.get(i) : firstWord + " " + cmd.get(i);
+            }
+        }
+
+        GenerationOptions options = new GenerationOptions(Integer.parseInt(cmd.get(1)),
+                firstWord, propertySmartNextWord).withCharCountMin(charCountMin);
+
+        if (count > 0 || outFileName != null) {
+            generateBatch(generator, options, Math.max(count, 1), outFileName);
+
+            return;
+        }
+
+        String text = around ? generator.generateAround(options) : generator.generate(options);
 
         System.out.println(text);
         System.out.println("");
     }
 
+    private void scoreFile(List<String> cmd) throws IOException {
+        Scorer scorer = getScorer();
+        String outFileName = cmd.size() > 3 && "--out".equals(cmd.get(2)) ? cmd.get(3) : null;
+        // texts with the highest perplexity, the lowest of them first
+        PriorityQueue<Map.Entry<String, TextScore>> worst = new PriorityQueue<>(
+                Comparator.comparingDouble(entry -> entry.getValue().getPerplexity()));
+        long texts = 0;
+        long tokens = 0;
+        long unknown = 0;
+        double logLikelihood = 0;
+        long startTime = System.nanoTime();
+
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(cmd.get(1)), StandardCharsets.UTF_8);
+             Writer writer = outFileName != null
+                     ? Files.newBufferedWriter(Paths.get(outFileName), StandardCharsets.UTF_8) : null) {
+            List<String> lines = new ArrayList<>(SCORE_CHUNK_SIZE);
+            String line;
+
+            do {
+                line = reader.readLine();
+
+                if (line != null) {
+                    lines.add(line);
+                }
+
+                if (lines.size() < SCORE_CHUNK_SIZE && line != null) {
+                    continue;
+                }
+
+                List<TextScore> scores = scorer.score(lines, propertyGenThreads);
+
+                for (int i = 0; i < scores.size(); i++) {
+                    TextScore score = scores.get(i);
+                    texts++;
+                    tokens += score.getTokenCount();
+                    unknown += score.getUnknownCount();
+                    logLikelihood += score.getLogLikelihood();
+
+                    if (writer != null) {
+                        writer.write(String.format("%.3f\t%.3f\t%d\t%d\n", score.getPerplexity(),
+                                score.getLogLikelihood(), score.getTokenCount(), score.getUnknownCount()));
+                    }
+
+                    if (worst.size() < SCORE_WORST_COUNT
+                            || score.getPerplexity() > worst.peek().getValue().getPerplexity()) {
+                        worst.add(new AbstractMap.SimpleEntry<>(lines.get(i), score));
+
+                        if (worst.size() > SCORE_WORST_COUNT) {
+                            worst.poll();
+                        }
+                    }
+                }
+
+                lines.clear();
+            } while (line != null);
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println(String.format("Scored %d texts, %d tokens (%d unknown) in %.0f ms (%.0f tokens/sec)",
+                texts, tokens, unknown, seconds * 1000, tokens / seconds));
+        System.out.println(String.format("perplexity  : %.1f (log-likelihood %.1f)",
+                tokens > 0 ? Math.exp(-logLikelihood / tokens) : 1, logLikelihood));
+        System.out.println("least likely:");
+
+        List<Map.Entry<String, TextScore>> least = new ArrayList<>(worst);
+        least.sort(Comparator.comparingDouble(entry -> -entry.getValue().getPerplexity()));
+
+        for (Map.Entry<String, TextScore> entry : least) {
+            System.out.println(String.format("  %10.1f  %s", entry.getValue().getPerplexity(),
+                    StringUtils.abbreviate(entry.getKey(), 100)));
+        }
+    }
+
+    private void generateBatch(Generator generator, GenerationOptions options, int count,
+                               String outFileName) throws IOException {
+        long startTime = System.nanoTime();
+
+        if (outFileName != null) {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(outFileName), StandardCharsets.UTF_8)) {
+                generator.generateBatch(options, count, propertyGenThreads, writer);
+            }
+        } else {
+            generator.generateBatch(options, count, propertyGenThreads, new PrintWriter(System.out));
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.println(String.format("Generated %d texts in %.0f ms (%.0f texts/sec)",
+                count, seconds * 1000, count / seconds));
+    }
+
     private void printHelp() {
         System.out.println("gen <max_symbols_count> - Generates text");
-        System.out.println("gen <max_symbols_count> <first_word> - Generates text started with <first_word>");
+        System.out.println("gen <max_symbols_count> <first_word> - Generates text started with <first_word> in any case");
+        System.out.println("gen <max_symbols_count> <prefix*> - Generates text started with a random word starting with <prefix>");
+        System.out.println("gen <max_symbols_count> --min <min_symbols_count> - Generates text ending with a sentence between min and max symbols");
+        System.out.println("gen <max_symbols_count> --around <word...> - Generates text containing the words somewhere in it");
+        System.out.println("gen <max_symbols_count> [first_word] --count <n> [--out <file_name>] - Generates n texts, one per line");
         System.out.println("stat - Prints statistics");
-        System.out.println("stat <word> - Prints statistics related with word");
+        System.out.println("stat <word> [top <n> [offset]] - Prints statistics related with word and its n most frequent next words (20 by default)");
+        System.out.println("top [n] [offset] - Prints n most frequent words");
+        System.out.println("score <file_name> [--out <file_name>] - Scores every line by perplexity under the model, lists the least likely lines");
         System.out.println("load <file_name> - Loads file");
+        System.out.println("load <dir_name|glob> - Loads all matched files in parallel, e.g. load texts/*.txt");
+        System.out.println("tail <file_name> - Keeps adding text appended to file while generating, e.g. chat logs");
+        System.out.println("tail stop - Stops following the file");
+        System.out.println("save <file_name> - Saves trained model to binary snapshot");
+        System.out.println("open <file_name> - Opens binary snapshot instead of current model");
+        System.out.println("prune <min_count> [max_words] [max_next_words] - Removes rare transitions and words, 0 means no limit");
+        System.out.println("serve <port> - Starts HTTP server: GET /generate?max=<n>&first=<word>, GET /stats/<word>");
+        System.out.println("serve stop - Stops HTTP server");
+        System.out.println("metrics - Prints parse and generation metrics, also available via JMX");
+        System.out.println("metrics reset - Resets metrics");
         System.out.println("clear - Clears all buffers");
         System.out.println("set <property_name> <property_value> - Set property value.");
+        System.out.println("  nextword.smart <true|false> - Select next word according to its frequency");
+        System.out.println("  order <1.." + Wordogram.MAX_ORDER + "> - Count of previous words the next word depends on");
+        System.out.println("  random.secure <true|false> - Use SecureRandom instead of fast thread local random");
+        System.out.println("  load.threads <count> - Count of threads used to load several files, one while dedup is on");
+        System.out.println("  gen.threads <count> - Count of threads used to generate or score several texts");
+        System.out.println("  metrics.enabled <true|false> - Collect parse and generation metrics");
+        System.out.println("  alphabet <scripts> - Scripts of words in loaded texts, e.g. cyrillic,latin (default russian)");
+        System.out.println("  dedup.memory <megabytes> - Skip sentences loaded before using a filter of this size, 0 disables (default)");
+        System.out.println("  dedup.min.words <count> - Sentences shorter than this are never skipped (default " + SentenceFilter.DEFAULT_MIN_WORDS + ")");
         System.out.println("q - exit");
     }
 
-    private void printStats(List<String> cmd) {
-        if (cmd.isEmpty() || cmd.size() == 1) {
-            Map<String, Map<String, Integer>> words = wordogram.getWords();
-            System.out.println("unique words: " + words.size());
-            System.out.println("names       : " + names.size());
+    private void printStats(List<String> cmd) throws IOException {
+        if ((cmd.isEmpty() || cmd.size() == 1) && snapshot != null) {
+            ChainModel model = snapshot.getModel();
+            System.out.println("order       : " + model.getOrder());
+            System.out.println("words       : " + model.size());
+            System.out.println("states      : " + model.getStateCount());
+            System.out.println("transitions : " + model.getTransitionCount());
+            System.out.println("names       : " + snapshot.getNameCount());
+        } else if (cmd.isEmpty() || cmd.size() == 1) {
+            online.read(wordogram -> {
+                System.out.println("order       : " + wordogram.getOrder());
+                System.out.println("unique words: " + wordogram.getStateCount());
+                System.out.println("word tuples : " + wordogram.getContextCount());
+                System.out.println("transitions : " + wordogram.getTransitionCount());
+                System.out.println("names       : " + wordogram.getNames().getNameCount());
+                printMemoryStats(wordogram);
+
+                return null;
+            });
         } else if (cmd.size() > 1) {
+            ChainModel model = getModel();
+            SeedIndex index = model.getSeedIndex();
             String word = cmd.get(1);
-            String wordCap = StringUtils.capitalize(word);
-            String wordLowed = word.toLowerCase();
+            int start = index.indexOf(word);
 
-            boolean wordExists = printStats(word);
+            if (start < 0) {
+                System.out.println("Unknown word!");
 
-            if (!wordCap.equals(word)) {
-                wordExists |= printStats(wordCap);
+                return;
             }
 
-            if (!wordLowed.equals(word) && !wordLowed.equals(wordCap)) {
-                wordExists |= printStats(wordLowed);
+            int limit = STATS_PAGE_SIZE;
+            int offset = 0;
+
+            if (cmd.size() > 3 && "top".equals(cmd.get(2))) {
+                limit = Integer.parseInt(cmd.get(3));
+                offset = cmd.size() > 4 ? Integer.parseInt(cmd.get(4)) : 0;
             }
 
-            if (!wordExists) {
-                System.out.println("Unknown word!");
+            // every form of the word known to the model, e.g. a name and the same word in lower case
+            for (int pos = start; pos < index.groupEnd(start); pos++) {
+                printStats(model, index.getId(pos), limit, offset);
             }
         }
     }
 
-    private boolean printStats(String word) {
-        Map<String, Integer> map = wordogram.getWords().get(word);
-        Integer count = stats.get(word);
+    private void printTop(List<String> cmd) {
+        ChainModel model = getModel();
+        StatsIndex stats = model.getStatsIndex();
+        int limit = cmd.size() > 1 ? Integer.parseInt(cmd.get(1)) : STATS_PAGE_SIZE;
+        int offset = cmd.size() > 2 ? Integer.parseInt(cmd.get(2)) : 0;
+        int end = Math.min(stats.size(), offset + limit);
 
-        if (map != null || count != null) {
-            System.out.println("Statistics for the word '" + word + "'");
+        for (int rank = offset; rank < end; rank++) {
+            int id = stats.getWord(rank);
+            System.out.println(String.format("%6d. %s: %d", rank + 1, model.getWord(id), stats.getCount(id)));
+        }
 
-            if (count != null) {
-                System.out.println("Used " + count + " times");
-            }
+        if (end < stats.size()) {
+            System.out.println("  ... next page: top " + limit + " " + end);
+        }
+    }
 
-            if (map != null) {
-                System.out.println("There are " + map.size() + " words after the word '" + word + "':");
-                List<String> sortedWords = sortByCount(map);
+    private void printMetrics(List<String> cmd) {
+        Metrics metrics = Metrics.global();
 
-                for (String nextWord : sortedWords) {
-                    if (Wordogram.TOKEN_END.equals(nextWord)) {
-                        System.out.println("  <END>: " + map.get(nextWord));
-                    } else {
-                        System.out.println("  " + nextWord + ": " + map.get(nextWord));
-                    }
+        if (cmd.size() > 1 && "reset".equals(cmd.get(1))) {
+            metrics.reset();
+            System.out.println("Metrics are reset.");
+
+            return;
+        }
+
+        System.out.println("enabled         : " + metrics.isEnabled());
+        System.out.println(String.format("parsed          : %d bytes, %d tokens", metrics.getParsedBytes(),
+                metrics.getParsedTokens()));
+        System.out.println(String.format("parse speed     : %.0f bytes/sec, %.0f tokens/sec",
+                metrics.getParseBytesPerSecond(), metrics.getParseTokensPerSecond()));
+        System.out.println(String.format("generated       : %d texts, %.0f texts/sec, %.1f draws/text",
+                metrics.getGeneratedTexts(), metrics.getGeneratedTextsPerSecond(), metrics.getSamplingDrawsPerText()));
+        System.out.println(String.format("length window   : %.2f candidates/text",
+                metrics.getCandidatesPerConstrainedText()));
+        System.out.println(String.format("latency         : p50 %d us, p99 %d us, p99.9 %d us",
+                metrics.getGenerationLatencyP50Micros(), metrics.getGenerationLatencyP99Micros(),
+                metrics.getGenerationLatencyP999Micros()));
+        System.out.println("model memory    : " + metrics.getModelMemoryBytes() + " bytes");
+        System.out.println("next words/state:");
+
+        long[] fanOut = metrics.getFanOutHistogram();
+
+        for (int bucket = 0; bucket < fanOut.length; bucket++) {
+            String range = bucket <= 1 ? String.valueOf(bucket)
+                    : (1 << (bucket - 1)) + "-" + ((1 << bucket) - 1);
+            System.out.println(String.format("  %-12s: %d", range, fanOut[bucket]));
+        }
+    }
+
+    private void printMemoryStats(Wordogram wordogram) {
+        int transitions = wordogram.getTransitionCount();
+        long memory = wordogram.getMemoryUsage();
+        long hashMapMemory = wordogram.getHashMapMemoryUsage();
+
+        System.out.println("memory      : " + memory + " bytes (HashMap layout: " + hashMapMemory + " bytes)");
+        System.out.println("storage     : " + (wordogram.getStorage() == Storage.OFF_HEAP ? "off heap" : "heap"));
+
+        if (memoryBeforePrune > 0) {
+            System.out.println("before prune: " + memoryBeforePrune + " bytes");
+        }
+
+        if (transitions > 0) {
+            System.out.println(String.format("per transition: %.1f bytes (HashMap layout: %.1f bytes)",
+                    memory / (double) transitions, hashMapMemory / (double) transitions));
+        }
+    }
+
+    private void printStats(ChainModel model, int id, int limit, int offset) throws IOException {
+        StatsIndex stats = model.getStatsIndex();
+        String word = model.getWord(id);
+        int successorCount = model.getSuccessorCount(id);
+        int count = getWordCount(word);
+        String capitalized = StringUtils.capitalize(word);
+        int capitalizedCount = capitalized.equals(word) ? 0 : getWordCount(capitalized);
+
+        System.out.println("Statistics for the word '" + word + "'");
+
+        if (count > 0) {
+            System.out.println("Used " + count + " times");
+        }
+
+        if (capitalizedCount > 0) {
+            System.out.println("Used " + capitalizedCount + " times as '" + capitalized + "'");
+        }
+
+        if (stats.getRank(id) >= 0) {
+            System.out.println("Ranked " + (stats.getRank(id) + 1) + " of " + stats.size() + " by frequency");
+        }
+
+        if (successorCount > 0) {
+            int end = Math.min(successorCount, offset + limit);
+            System.out.println("There are " + successorCount + " words after the word '" + word + "'"
+                    + (offset < end ? ", " + (offset + 1) + "-" + end + " of them:" : ""));
+
+            for (int pos = offset; pos < end; pos++) {
+                int index = stats.getSuccessorIndex(id, pos);
+                String nextWord = model.getWord(model.getSuccessor(id, index));
+                int nextCount = model.getSuccessorWeight(id, index);
+
+                if (Wordogram.TOKEN_END.equals(nextWord)) {
+                    System.out.println("  <END>: " + nextCount);
+                } else {
+                    System.out.println("  " + nextWord + ": " + nextCount);
                 }
             }
 
-            System.out.println("");
+            if (end < successorCount) {
+                System.out.println("  ... next page: stat " + word + " top " + limit + " " + end);
+            }
+        }
 
-            return true;
+        System.out.println("");
+    }
+
+    private int getWordCount(String word) throws IOException {
+        if (snapshot != null) {
+            return snapshot.getCount(word);
         }
 
-        return false;
+        String lowercased = word.toLowerCase();
+
+        return online.read(wordogram -> {
+            int id = wordogram.getVocabulary().getId(lowercased);
+
+            if (id < 0) {
+                return 0;
+            }
+
+            return lowercased.equals(word)
+                    ? wordogram.getNames().getLowercaseCount(id)
+                    : wordogram.getNames().getCapitalizedCount(id);
+        });
+    }
+
+    private void saveSnapshot(String fileName) throws IOException {
+        System.out.println("Saving snapshot " + fileName);
+        ModelSnapshot target = snapshot != null ? snapshot : online.read(wordogram -> ModelSnapshot.of(
+                wordogram.toModel(),
+                wordogram.getNames().toNameMap(wordogram.getVocabulary()),
+                wordogram.getNames().toCountMap(wordogram.getVocabulary())));
+        target.save(new File(fileName));
+        System.out.println("Saved " + new File(fileName).length() + " bytes");
+    }
+
+    private void openSnapshot(String fileName) throws IOException {
+        System.out.println("Opening snapshot " + fileName);
+        ModelSnapshot opened = ModelSnapshot.open(new File(fileName));
+        clearBuffers();
+        snapshot = opened;
+        printStats(Collections.emptyList());
     }
 
     private void loadFile(String fileName) throws IOException {
-        System.out.println("Loading file " + fileName);
-        File file = new File(fileName);
-        String raw = new String(Files.readAllBytes(file.toPath()));
-        List<String> words = parser.parse(raw, names, stats);
-        words.forEach(word -> wordogram.addNext(word));
+        if (snapshot != null) {
+            throw new RuntimeException("Opened snapshot is read-only, use 'clear' before loading files.");
+        }
+
+        List<Path> files = CorpusLoader.listFiles(fileName);
+
+        if (files.isEmpty()) {
+            throw new RuntimeException("No files found: " + fileName);
+        }
+
+        CorpusLoader loader = new CorpusLoader(parser, propertyLoadThreads);
+
+        if (files.size() == 1) {
+            System.out.println("Loading file " + files.get(0));
+        } else {
+            int threads = loader.getThreadCount(files.size());
+            System.out.println("Loading " + files.size() + " files using " + threads
+                    + (threads == 1 ? " thread" : " threads"));
+        }
+
+        SentenceFilter filter = parser.getSentenceFilter();
+        long skippedSentences = filter != null ? filter.getSkippedSentences() : 0;
+        long skippedBytes = filter != null ? filter.getSkippedBytes() : 0;
+        long startTime = System.currentTimeMillis();
+        online.update(wordogram -> {
+            loader.load(files, wordogram);
+            return null;
+        });
+        online.publish();
+        System.out.println("Loaded in " + (System.currentTimeMillis() - startTime) + " ms");
+
+        if (filter != null) {
+            System.out.println(String.format("Skipped %d repeated sentences (%d bytes), filter %.1f%% full, "
+                            + "%.4f%% of new sentences are taken for repeated",
+                    filter.getSkippedSentences() - skippedSentences, filter.getSkippedBytes() - skippedBytes,
+                    filter.getFill() * 100, filter.getFalsePositiveRate() * 100));
+        }
 
-        generator = null;
         printStats(Collections.emptyList());
     }
 
-    private Generator getGenerator() {
-        if (generator == null) {
-            generator = new Generator(wordogram.getWords());
-            generator.setUseSmartNextWord(propertySmartNextWord);
+    private void tailFile(String fileName) {
+        if ("stop".equals(fileName)) {
+            stopTail();
+            System.out.println("Stopped following file");
+
+            return;
         }
 
-        return generator;
+        if (snapshot != null) {
+            throw new RuntimeException("Opened snapshot is read-only, use 'clear' before loading files.");
+        }
+
+        stopTail();
+        Path path = Paths.get(fileName);
+        tailThread = new Thread(() -> followFile(path), "tail");
+        tailThread.setDaemon(true);
+        tailThread.start();
+        System.out.println("Following file " + path + ", appended text is added to the model as it arrives");
+    }
+
+    private void serve(String port) throws IOException {
+        if ("stop".equals(port)) {
+            if (server != null) {
+                server.stop();
+                server = null;
+            }
+
+            System.out.println("Server stopped");
+
+            return;
+        }
+
+        if (server != null) {
+            throw new RuntimeException("Server is already listening on port " + server.getPort());
+        }
+
+        GenerationServer started = new GenerationServer(this::getModel, this::getGenerator, propertyGenThreads);
+        started.start(Integer.parseInt(port));
+        server = started;
+        System.out.println("Listening on http://localhost:" + server.getPort() + "/generate");
     }
 
-    private List<String> sortByCount(Map<String, Integer> words) {
-        List<String> result = new ArrayList<>(words.keySet());
+    /**
+     * Stops following the file and waits till the text read last is added, so no update follows.
+     */
+    private void stopTail() {
+        if (tailThread == null) {
+            return;
+        }
+
+        Thread thread = tailThread;
+        tailThread = null;
+        thread.interrupt();
 
-        result.sort((s1, s2) -> {
-            int cmd = words.get(s2).compareTo(words.get(s1));
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while stopping tail", e);
+        }
+    }
+
+    /**
+     * Adds complete lines appended to the file till the thread is interrupted.
+     * <p>
+     * The line being written is carried over to the next read, a line longer than the buffer grows it.
+     * Lines are parsed into a wordogram of their own and merged at once, so an interrupt never leaves
+     * a part of them in the model.
+     */
+    private void followFile(Path path) {
+        long position = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer bytes = ByteBuffer.allocate(TAIL_CHUNK_SIZE);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                if (channel.size() < position) {
+                    // the file was truncated, start over
+                    position = 0;
+                    ((Buffer) bytes).clear();
+                }
+
+                if (!bytes.hasRemaining()) {
+                    ByteBuffer grown = ByteBuffer.allocate(bytes.capacity() << 1);
+                    ((Buffer) bytes).flip();
+                    bytes = grown.put(bytes);
+                }
 
-            if (cmd != 0) {
-                return cmd;
+                int read = channel.read(bytes, position);
+                position += Math.max(read, 0);
+                int end = bytes.position();
+
+                while (end > 0 && bytes.get(end - 1) != '\n') {
+                    end--;
+                }
+
+                if (end == 0) {
+                    if (read <= 0) {
+                        Thread.sleep(TAIL_POLL_MILLIS);
+                    }
+
+                    continue;
+                }
+
+                Wordogram lines = online.read(wordogram ->
+                        new Wordogram(wordogram.getOrder(), wordogram.getStorage()));
+                parser.parse(Channels.newChannel(new ByteArrayInputStream(bytes.array(), 0, end)), lines);
+                online.update(wordogram -> {
+                    wordogram.merge(lines);
+                    return null;
+                });
+
+                // the unterminated line moves to the start of the buffer
+                int carried = bytes.position() - end;
+                System.arraycopy(bytes.array(), end, bytes.array(), 0, carried);
+                ((Buffer) bytes).position(carried);
             }
+        } catch (InterruptedException | ClosedByInterruptException e) {
+            // stopped
+        } catch (IOException e) {
+            System.out.println("ERROR: tail " + path + " - " + e.getMessage());
+        }
+    }
 
-            return s1.compareTo(s2);
-        });
+    private ChainModel getModel() {
+        return snapshot != null ? snapshot.getModel() : online.getModel();
+    }
+
+    private Generator getGenerator() {
+        ChainModel model = getModel();
+
+        // a new model is published by every load, so the generator follows it
+        if (generator == null || generator.getModel() != model) {
+            generator = propertySecureRandom
+                    ? new Generator(model, Generator.secureRandoms())
+                    : new Generator(model);
+        }
+
+        return generator;
+    }
+
+    private Scorer getScorer() {
+        ChainModel model = getModel();
+
+        if (scorer == null || scorer.getModel() != model) {
+            scorer = new Scorer(model, parser);
+        }
 
-        return result;
+        return scorer;
     }
 }
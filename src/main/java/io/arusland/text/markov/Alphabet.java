@@ -0,0 +1,146 @@
+package io.arusland.text.markov;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Chars which make up words, looked up in tables indexed by char, so a char is classified
+ * and lowercased at once without calls to {@link Character}.
+ * <p>
+ * A word consists of letters of the scripts of the alphabet, digits and hyphens. A char belongs to a word
+ * if its lower case does, the tables are computed once from {@link Character#toLowerCase(char)}
+ * and {@link Character#isDigit(char)}.
+ *
+ * @since 2026-10-18
+ */
+public final class Alphabet {
+    public static final Alphabet RUSSIAN = new Alphabet(EnumSet.of(Script.RUSSIAN));
+    private static final byte DIGIT = 1;
+    private static final byte END = 2;
+    private final Set<Script> scripts;
+    /**
+     * Lower case of every word char, zero for other chars.
+     */
+    private final char[] folds = new char[Character.MAX_VALUE + 1];
+    private final byte[] kinds = new byte[Character.MAX_VALUE + 1];
+
+    private Alphabet(Set<Script> scripts) {
+        this.scripts = scripts;
+
+        for (int ch = 0; ch <= Character.MAX_VALUE; ch++) {
+            char lower = Character.toLowerCase((char) ch);
+
+            if (lower == '-' || Character.isDigit(lower) || isLetter(lower)) {
+                folds[ch] = lower;
+            }
+
+            if (Character.isDigit((char) ch)) {
+                kinds[ch] = DIGIT;
+            } else if (isEndChar((char) ch)) {
+                kinds[ch] = END;
+            }
+        }
+    }
+
+    public static Alphabet of(Script... scripts) {
+        if (scripts.length == 0) {
+            throw new IllegalArgumentException("At least one script is required");
+        }
+
+        EnumSet<Script> set = EnumSet.noneOf(Script.class);
+        set.addAll(Arrays.asList(scripts));
+
+        return set.equals(RUSSIAN.scripts) ? RUSSIAN : new Alphabet(set);
+    }
+
+    /**
+     * Parses comma separated names of scripts, e.g. <code>cyrillic,latin</code>.
+     */
+    public static Alphabet parse(String value) {
+        return of(Arrays.stream(value.split(","))
+                .map(name -> Script.valueOf(name.trim().toUpperCase()))
+                .toArray(Script[]::new));
+    }
+
+    public Set<Script> getScripts() {
+        return scripts;
+    }
+
+    /**
+     * Returns lower case of the char if it belongs to a word or zero otherwise.
+     */
+    public char fold(char ch) {
+        return folds[ch];
+    }
+
+    public boolean isDigit(char ch) {
+        return kinds[ch] == DIGIT;
+    }
+
+    /**
+     * Returns true if the char ends a sentence.
+     */
+    public boolean isEnd(char ch) {
+        return kinds[ch] == END;
+    }
+
+    @Override
+    public String toString() {
+        return scripts.stream().map(script -> script.name().toLowerCase()).collect(Collectors.joining(","));
+    }
+
+    private boolean isLetter(char ch) {
+        for (Script script : scripts) {
+            if (script.contains(ch)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isEndChar(char ch) {
+        return ch == '.' || ch == '?' || ch == '!' || ch == ';' ||
+                ch == '…' || ch == ':';
+    }
+
+    /**
+     * Letters of a writing system, ranges of chars are filtered by {@link Character#isLetter(char)}.
+     */
+    public enum Script {
+        /**
+         * Letters of the Russian alphabet only.
+         */
+        RUSSIAN('а', 'я', 'ё', 'ё'),
+        /**
+         * Cyrillic and Cyrillic Supplement blocks, e.g. Ukrainian, Belarusian and Kazakh letters.
+         */
+        CYRILLIC('Ѐ', 'ԯ'),
+        /**
+         * Basic Latin, Latin-1 Supplement and Latin Extended-A and B letters.
+         */
+        LATIN('a', 'z', 'À', 'ɏ'),
+        GREEK('Ͱ', 'Ͽ');
+
+        /**
+         * Pairs of first and last chars of ranges.
+         */
+        private final char[] ranges;
+
+        Script(char... ranges) {
+            this.ranges = ranges;
+        }
+
+        boolean contains(char ch) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (ch >= ranges[i] && ch <= ranges[i + 1]) {
+                    return Character.isLetter(ch);
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package io.arusland.text.markov;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Immutable compiled form of a chain used for sampling.
+ * <p>
+ * Every state keeps its successors in one contiguous row of shared arrays
+ * together with cumulative weights, so a weighted draw is a binary search
+ * and a uniform draw is a single index, both without allocations.
+ * <p>
+ * States of one word share ids with the words, longer states of higher order
+ * chains follow them and are reached through {@link #getContext(int, int)}.
+ * <p>
+ * All data is kept in buffers, so a model can be either built in memory
+ * or sampled directly from a memory mapped {@link ModelSnapshot}. The {@link StatsIndex}
+ * is built together with the model and kept the same way.
+ *
+ * @since 2026-10-18
+ */
+public final class ChainModel {
+    private final StringTable words;
+    private final int order;
+    private final IntBuffer offsets;
+    private final IntBuffer successors;
+    private final IntBuffer cumulativeWeights;
+    private final LongBuffer contextKeys;
+    private final IntBuffer contextValues;
+    private final StatsIndex statsIndex;
+    private volatile SeedIndex seedIndex;
+    private volatile ChainModel reverse;
+    private volatile SentenceLengths sentenceLengths;
+
+    ChainModel(StringTable words, int order, IntBuffer offsets, IntBuffer successors,
+               IntBuffer cumulativeWeights, LongBuffer contextKeys, IntBuffer contextValues, StatsIndex statsIndex) {
+        this.words = words;
+        this.order = order;
+        this.offsets = offsets;
+        this.successors = successors;
+        this.cumulativeWeights = cumulativeWeights;
+        this.contextKeys = contextKeys;
+        this.contextValues = contextValues;
+        this.statsIndex = statsIndex;
+    }
+
+    ChainModel(StringTable words, int order, int[] offsets, int[] successors,
+               int[] cumulativeWeights, LongIntHashMap contexts) {
+        this(words, order, IntBuffer.wrap(offsets), IntBuffer.wrap(successors),
+                IntBuffer.wrap(cumulativeWeights), contexts.getKeys(), contexts.getValues(),
+                StatsIndex.build(words, IntBuffer.wrap(offsets), IntBuffer.wrap(successors),
+                        IntBuffer.wrap(cumulativeWeights), Storage.HEAP));
+    }
+
+    public static ChainModel compile(Map<String, Map<String, Integer>> words) {
+        Vocabulary vocabulary = new Vocabulary();
+        vocabulary.intern(Wordogram.TOKEN_END);
+        int transitionCount = 0;
+
+        for (Map.Entry<String, Map<String, Integer>> entry : words.entrySet()) {
+            vocabulary.intern(entry.getKey());
+            transitionCount += entry.getValue().size();
+
+            for (String nextWord : entry.getValue().keySet()) {
+                vocabulary.intern(nextWord);
+            }
+        }
+
+        int size = vocabulary.size();
+        int[] offsets = new int[size + 1];
+        int[] successors = new int[transitionCount];
+        int[] cumulativeWeights = new int[transitionCount];
+        int index = 0;
+
+        for (int id = 0; id < size; id++) {
+            offsets[id] = index;
+            Map<String, Integer> map = words.get(vocabulary.getWord(id));
+
+            if (map != null) {
+                long[] row = new long[map.size()];
+                int pos = 0;
+
+                for (Map.Entry<String, Integer> next : map.entrySet()) {
+                    row[pos++] = LongIntHashMap.key(vocabulary.getId(next.getKey()), next.getValue());
+                }
+
+                // rows are sorted by word id like rows of compiled wordograms
+                Arrays.sort(row);
+                int weight = 0;
+
+                for (long next : row) {
+                    weight += LongIntHashMap.low(next);
+                    successors[index] = LongIntHashMap.high(next);
+                    cumulativeWeights[index] = weight;
+                    index++;
+                }
+            }
+        }
+
+        offsets[size] = index;
+
+        return new ChainModel(vocabulary.toStringTable(), 1, offsets, successors, cumulativeWeights,
+                new LongIntHashMap());
+    }
+
+    /**
+     * Returns id of the word or -1 if the word is unknown.
+     */
+    public int getId(CharSequence word) {
+        return words.indexOf(word);
+    }
+
+    public String getWord(int id) {
+        return words.get(id);
+    }
+
+    public StringTable getWords() {
+        return words;
+    }
+
+    /**
+     * Returns case insensitive index of the words, it is built on the first call
+     * or by {@link OnlineModel} before the model is published.
+     */
+    public SeedIndex getSeedIndex() {
+        SeedIndex index = seedIndex;
+
+        if (index == null) {
+            // concurrent first calls may build equal indexes, any of them is fine
+            index = new SeedIndex(this);
+            seedIndex = index;
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns words ranked by frequency and next words sorted by count.
+     */
+    public StatsIndex getStatsIndex() {
+        return statsIndex;
+    }
+
+    /**
+     * Returns model of the chain read from right to left which gives the words preceding a state,
+     * it is built on the first call from the transitions of this model and takes about as much memory.
+     */
+    public ChainModel getReverse() {
+        ChainModel model = reverse;
+
+        if (model == null) {
+            model = Wordogram.reverse(this);
+            reverse = model;
+        }
+
+        return model;
+    }
+
+    /**
+     * Returns expected lengths of sentences after every word, they are solved on the first call
+     * or by {@link OnlineModel} before the model is published.
+     */
+    public SentenceLengths getSentenceLengths() {
+        SentenceLengths lengths = sentenceLengths;
+
+        if (lengths == null) {
+            lengths = new SentenceLengths(this);
+            sentenceLengths = lengths;
+        }
+
+        return lengths;
+    }
+
+    /**
+     * Solves expected lengths of sentences starting from those of the previous model, if they were solved.
+     *
+     * @param previous model whose words have the same ids in this one or null
+     */
+    void solveSentenceLengths(ChainModel previous) {
+        sentenceLengths = new SentenceLengths(this, previous != null ? previous.sentenceLengths : null);
+    }
+
+    public int size() {
+        return words.size();
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns count of states including states longer than one word.
+     */
+    public int getStateCount() {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * Returns state made of the state preceded by the older word or -1 if such state was never seen.
+     */
+    public int getContext(int state, int olderWord) {
+        int context = LongIntHashMap.get(contextKeys, contextValues, LongIntHashMap.key(state, olderWord));
+
+        return context > 0 ? context : -1;
+    }
+
+    /**
+     * Returns the longest known state for the previous words, the most recent word first.
+     * Falls back to shorter states when the longer ones were never seen.
+     */
+    public int findState(int[] history, int historySize) {
+        int state = history[0];
+        int depth = Math.min(historySize, order);
+
+        for (int i = 1; i < depth; i++) {
+            int context = getContext(state, history[i]);
+
+            if (context < 0) {
+                break;
+            }
+
+            state = context;
+        }
+
+        return state;
+    }
+
+    /**
+     * Returns size of the model buffers in bytes including the stats index.
+     */
+    public long sizeInBytes() {
+        return words.sizeInBytes() + 4L * offsets.limit() + 4L * successors.limit()
+                + 4L * cumulativeWeights.limit() + 8L * contextKeys.limit() + 4L * contextValues.limit()
+                + statsIndex.sizeInBytes();
+    }
+
+    public int getTransitionCount() {
+        return successors.limit();
+    }
+
+    public int getSuccessorCount(int id) {
+        return offsets.get(id + 1) - offsets.get(id);
+    }
+
+    /**
+     * Returns how many times the state was followed by any word.
+     */
+    public int getWeight(int id) {
+        int end = offsets.get(id + 1);
+
+        return end > offsets.get(id) ? cumulativeWeights.get(end - 1) : 0;
+    }
+
+    /**
+     * Returns id of the successor at the index of the word's successor row.
+     */
+    public int getSuccessor(int id, int index) {
+        return successors.get(offsets.get(id) + index);
+    }
+
+    /**
+     * Returns how many times the successor at the index followed the word.
+     */
+    public int getSuccessorWeight(int id, int index) {
+        int pos = offsets.get(id) + index;
+
+        return index == 0 ? cumulativeWeights.get(pos) : cumulativeWeights.get(pos) - cumulativeWeights.get(pos - 1);
+    }
+
+    /**
+     * Returns how many times the word followed the state or 0 if it never did.
+     * Successors of a state are sorted by word id, so the row is searched by halves.
+     */
+    public int getTransitionWeight(int id, int word) {
+        int low = offsets.get(id);
+        int high = offsets.get(id + 1) - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int successor = successors.get(mid);
+
+            if (successor < word) {
+                low = mid + 1;
+            } else if (successor > word) {
+                high = mid - 1;
+            } else {
+                return mid == offsets.get(id) ? cumulativeWeights.get(mid)
+                        : cumulativeWeights.get(mid) - cumulativeWeights.get(mid - 1);
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns next word id according to frequency of next words or -1 if the word has no successors.
+     */
+    public int nextWeighted(int id, Random random) {
+        int low = offsets.get(id);
+        int high = offsets.get(id + 1) - 1;
+
+        if (high < low) {
+            return -1;
+        }
+
+        int index = random.nextInt(cumulativeWeights.get(high));
+
+        // the first position whose cumulative weight exceeds the index
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (cumulativeWeights.get(mid) > index) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+
+        return successors.get(low);
+    }
+
+    /**
+     * Returns uniformly chosen next word id or -1 if the word has no successors.
+     */
+    public int nextUniform(int id, Random random) {
+        int start = offsets.get(id);
+        int count = offsets.get(id + 1) - start;
+
+        if (count == 0) {
+            return -1;
+        }
+
+        return successors.get(start + random.nextInt(count));
+    }
+
+    IntBuffer getOffsets() {
+        return offsets.duplicate();
+    }
+
+    IntBuffer getSuccessors() {
+        return successors.duplicate();
+    }
+
+    IntBuffer getCumulativeWeights() {
+        return cumulativeWeights.duplicate();
+    }
+
+    LongBuffer getContextKeys() {
+        return contextKeys.duplicate();
+    }
+
+    IntBuffer getContextValues() {
+        return contextValues.duplicate();
+    }
+}
@@ -0,0 +1,99 @@
+package io.arusland.text.markov;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+/**
+ * Lazy walk over a {@link ChainModel} which draws the next word id only when it is requested.
+ * <p>
+ * The walk keeps just the previous words of the current state, so it takes the same memory
+ * however many words are taken. It is not thread safe and should be consumed by the thread
+ * which created it.
+ *
+ * @since 2026-10-18
+ */
+public final class ChainWalk implements PrimitiveIterator.OfInt {
+    private final ChainModel model;
+    private final boolean smart;
+    private final Random random;
+    private final StopCondition stop;
+    private final int[] history;
+    private int historySize;
+    private int nextId;
+    private boolean checked;
+    private boolean stopped;
+    private int wordCount;
+    private int sentenceCount;
+    private long charCount;
+
+    ChainWalk(ChainModel model, int firstId, boolean smart, Random random, StopCondition stop) {
+        this.model = model;
+        this.smart = smart;
+        this.random = random;
+        this.stop = stop;
+        this.history = new int[model.getOrder()];
+        this.history[0] = Wordogram.END_ID;
+        this.historySize = 1;
+        this.nextId = firstId;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!checked) {
+            stopped = nextId < 0 || stop.isReached(this, nextId);
+            checked = true;
+        }
+
+        return !stopped;
+    }
+
+    @Override
+    public int nextInt() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        int id = nextId;
+
+        if (id == Wordogram.END_ID) {
+            charCount += model.getWords().length(id);
+            sentenceCount++;
+        } else {
+            charCount += (wordCount > 0 ? 1 : 0) + model.getWords().length(id);
+            wordCount++;
+        }
+
+        historySize = Wordogram.pushHistory(history, historySize, model.getOrder(), id);
+        int state = model.findState(history, historySize);
+        nextId = smart ? model.nextWeighted(state, random) : model.nextUniform(state, random);
+        checked = false;
+
+        return id;
+    }
+
+    public ChainModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns count of words taken so far not counting {@link Wordogram#TOKEN_END}.
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Returns count of {@link Wordogram#TOKEN_END} taken so far.
+     */
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+    /**
+     * Returns length of the words taken so far joined by spaces.
+     */
+    public long getCharCount() {
+        return charCount;
+    }
+}
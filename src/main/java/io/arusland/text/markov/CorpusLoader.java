@@ -0,0 +1,155 @@
+package io.arusland.text.markov;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Trains a wordogram from many files using several threads.
+ * <p>
+ * Every file is parsed into its own wordogram, the parts are merged in the file order, so the result is the same as loading
+ * the files one by one on a single thread.
+ * <p>
+ * Files are loaded one by one when the parser has a {@link SentenceFilter}: which copy of a repeated sentence
+ * is kept, and so the counts of its words and names, depends on the order sentences reach the filter.
+ *
+ * @since 2026-10-18
+ */
+public class CorpusLoader {
+    private final WordParser parser;
+    private final int threadCount;
+
+    public CorpusLoader(WordParser parser, int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threadCount);
+        }
+
+        this.parser = parser;
+        this.threadCount = threadCount;
+    }
+
+    /**
+     * Returns sorted list of files for a file name, a directory (all files in it and its subdirectories)
+     * or a glob pattern like <code>texts/*.txt</code>.
+     */
+    public static List<Path> listFiles(String pattern) throws IOException {
+        int globStart = indexOfGlob(pattern);
+
+        if (globStart < 0) {
+            Path path = Paths.get(pattern);
+
+            if (!Files.isDirectory(path)) {
+                return Collections.singletonList(path);
+            }
+
+            try (Stream<Path> files = Files.walk(path)) {
+                return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+        }
+
+        String prefix = pattern.substring(0, globStart);
+        int dirEnd = Math.max(prefix.lastIndexOf('/'), prefix.lastIndexOf(File.separatorChar));
+        Path dir = Paths.get(dirEnd >= 0 ? prefix.substring(0, dirEnd + 1) : "");
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public void load(List<Path> files, Wordogram wordogram) throws IOException {
+        if (getThreadCount(files.size()) == 1) {
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    parser.parse(channel, wordogram);
+                }
+            }
+
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "corpus-loader");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        try {
+            Deque<Future<Wordogram>> parts = new ArrayDeque<>();
+            int next = 0;
+
+            while (next < files.size() || !parts.isEmpty()) {
+                // keep a bounded number of parsed parts waiting for the merge
+                while (next < files.size() && parts.size() < threadCount * 2) {
+                    Path file = files.get(next++);
+                    parts.add(executor.submit(() -> parse(file, wordogram)));
+                }
+
+                wordogram.merge(parts.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Loading was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns count of threads loading the files.
+     */
+    public int getThreadCount(int fileCount) {
+        return fileCount == 1 || parser.getSentenceFilter() != null ? 1 : threadCount;
+    }
+
+    /**
+     * Parses the file into a new wordogram of the same order and storage as the target one.
+     */
+    private Wordogram parse(Path file, Wordogram target) throws IOException {
+        Wordogram part = new Wordogram(target.getOrder(), target.getStorage());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            parser.parse(channel, part);
+        }
+
+        return part;
+    }
+
+    private static int indexOfGlob(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char ch = pattern.charAt(i);
+
+            if (ch == '*' || ch == '?' || ch == '[' || ch == '{') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,75 @@
+package io.arusland.text.markov;
+
+/**
+ * Immutable parameters of a single {@link Generator#generate(GenerationOptions)} call.
+ *
+ * @since 2026-10-18
+ */
+public final class GenerationOptions {
+    private final int charCountMin;
+    private final int charCountMax;
+    private final String firstWord;
+    private final boolean smartNextWord;
+
+    public GenerationOptions(int charCountMax) {
+        this(charCountMax, null, true);
+    }
+
+    public GenerationOptions(int charCountMax, String firstWord, boolean smartNextWord) {
+        this(0, charCountMax, firstWord, smartNextWord);
+    }
+
+    private GenerationOptions(int charCountMin, int charCountMax, String firstWord, boolean smartNextWord) {
+        if (charCountMin > 0 && charCountMin > charCountMax) {
+            throw new IllegalArgumentException("Min char count " + charCountMin
+                    + " is greater than max char count " + charCountMax);
+        }
+
+        this.charCountMin = charCountMin;
+        this.charCountMax = charCountMax;
+        this.firstWord = firstWord;
+        this.smartNextWord = smartNextWord;
+    }
+
+    /**
+     * Returns least length of the text or 0 if the text may be cut at max length. When it is set the text
+     * is steered to end with a sentence when its length is between min and max.
+     */
+    public int getCharCountMin() {
+        return charCountMin;
+    }
+
+    public int getCharCountMax() {
+        return charCountMax;
+    }
+
+    /**
+     * Returns word the text must start with or null to choose it randomly.
+     */
+    public String getFirstWord() {
+        return firstWord;
+    }
+
+    /**
+     * Returns true if next word is chosen according to its frequency, otherwise all next words are equiprobable.
+     */
+    public boolean isSmartNextWord() {
+        return smartNextWord;
+    }
+
+    public GenerationOptions withCharCountMin(int charCountMin) {
+        return new GenerationOptions(charCountMin, charCountMax, firstWord, smartNextWord);
+    }
+
+    public GenerationOptions withCharCountMax(int charCountMax) {
+        return new GenerationOptions(charCountMin, charCountMax, firstWord, smartNextWord);
+    }
+
+    public GenerationOptions withFirstWord(String firstWord) {
+        return new GenerationOptions(charCountMin, charCountMax, firstWord, smartNextWord);
+    }
+
+    public GenerationOptions withSmartNextWord(boolean smartNextWord) {
+        return new GenerationOptions(charCountMin, charCountMax, firstWord, smartNextWord);
+    }
+}
@@ -2,154 +2,690 @@ package io.arusland.text.markov;
 
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.security.SecureRandom;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
+ * Generates texts from an immutable model.
+ * <p>
+ * The generator has no mutable state, so one instance can be used by any number of threads.
+ * Every thread draws from its own random generator: {@link ThreadLocalRandom} by default
+ * or a thread local {@link SecureRandom} when created with {@link #secureRandoms()}.
+ *
  * @author Ruslan Absalyamov
  * @since 2017-03-08
  */
 public class Generator {
-    private final Map<String, Map<String, Integer>> words;
-    private final SecureRandom random = new SecureRandom();
-    private boolean useSmartNextWord = true;
-    private final List<String> commaTokens = Arrays.asList("но", "а", "что", "чтобы",
-            "который", "которая", "которые", "которую", "когда");
+    private static final int BATCH_CHUNK_SIZE = 64 * 1024;
+    /**
+     * Texts generated to get one ending with a sentence within the length window before giving up.
+     */
+    private static final int MAX_CANDIDATES = 32;
+    /**
+     * Share of weight of next words of a longer state left by steering below which the state of one word is used.
+     */
+    private static final double BACK_OFF_SHARE = 0.1;
+    /**
+     * Draws dropped by steering in a row before the whole row of next words is weighed.
+     */
+    private static final int STEERING_DRAWS = 16;
+    /**
+     * Stands for a first word unknown to the model.
+     */
+    private static final int SEED_ID = Integer.MAX_VALUE;
+    private static final String[] COMMA_TOKENS = {"но", "а", "что", "чтобы",
+            "который", "которая", "которые", "которую", "когда"};
+    private final ChainModel model;
+    private final Supplier<Random> randoms;
+    /**
+     * Ids of words which are preceded by a comma.
+     */
+    private final int[] commaIds;
 
     public Generator(Map<String, Map<String, Integer>> words) {
-        this.words = words;
+        this(ChainModel.compile(words));
+    }
+
+    public Generator(ChainModel model) {
+        this(model, ThreadLocalRandom::current);
+    }
+
+    /**
+     * Creates generator which takes random generator of the current thread from the supplier on every call.
+     */
+    public Generator(ChainModel model, Supplier<Random> randoms) {
+        this.model = model;
+        this.randoms = randoms;
+        this.commaIds = Arrays.stream(COMMA_TOKENS).mapToInt(model::getId).filter(id -> id >= 0).toArray();
+    }
+
+    /**
+     * Returns supplier of a {@link SecureRandom} per thread.
+     */
+    public static Supplier<Random> secureRandoms() {
+        ThreadLocal<Random> randoms = ThreadLocal.withInitial(SecureRandom::new);
+
+        return randoms::get;
+    }
+
+    public ChainModel getModel() {
+        return model;
     }
 
     public String generate(int charCountMax) {
-        return generate(charCountMax, null);
+        return generate(new GenerationOptions(charCountMax));
     }
 
     public String generate(int charCountMax, String firstWord) {
-        StringBuilder sb = new StringBuilder(charCountMax);
+        return generate(new GenerationOptions(charCountMax).withFirstWord(firstWord));
+    }
 
-        String word = selectFirstWord(firstWord);
-        String prevWord = null;
+    public String generate(GenerationOptions options) {
+        Random random = randoms.get();
+        StringBuilder sb = new StringBuilder(options.getCharCountMax());
+        appendMeasuredText(sb, options, random, new int[model.getOrder()]);
 
-        while (word != null) {
-            String prefix = makePrefix(word, prevWord);
+        return sb.toString();
+    }
+
+    /**
+     * Generates a text for each of the options in one pass, which takes the random generator once
+     * and reuses one buffer for all texts, so it is cheaper than separate calls for short texts.
+     */
+    public List<String> generate(List<GenerationOptions> batch) {
+        Random random = randoms.get();
+        int[] history = new int[model.getOrder()];
+        StringBuilder sb = new StringBuilder();
+        List<String> texts = new ArrayList<>(batch.size());
+
+        for (GenerationOptions options : batch) {
+            sb.setLength(0);
+            appendMeasuredText(sb, options, random, history);
+            texts.add(sb.toString());
+        }
+
+        return texts;
+    }
+
+    /**
+     * Generates a text around the seed words of the options' first word: the sentence with the seed
+     * is grown to the left by the {@link ChainModel#getReverse() reversed chain} till its start
+     * and then to the right by the chain, so the seed does not have to start the text.
+     * <p>
+     * At most half of the chars left after the seed are taken by words to the left of it.
+     * Seed words are resolved like the first word of {@link #generate(GenerationOptions)},
+     * without a seed or with an unknown seed word the text is generated by it.
+     */
+    public String generateAround(GenerationOptions options) {
+        String[] seed = StringUtils.split(options.getFirstWord());
+
+        if (seed == null || seed.length == 0) {
+            return generate(options);
+        }
+
+        Random random = randoms.get();
+        boolean smart = options.isSmartNextWord();
+        int[] ids = new int[seed.length + 16];
+        int seedLength = seed.length - 1;
+
+        // seed words go to the end, the left part is put before them when it is known
+        for (int i = 0; i < seed.length; i++) {
+            int id = findFirstWord(seed[i], smart, random);
+
+            if (id < 0) {
+                return generate(options);
+            }
+
+            ids[ids.length - seed.length + i] = id;
+            seedLength += model.getWords().length(id);
+        }
+
+        long startTime = System.nanoTime();
+        int charsLeft = (options.getCharCountMax() - seedLength) / 2;
+        ChainModel reverse = model.getReverse();
+        int[] history = new int[model.getOrder()];
+        int historySize = 0;
+        int first = ids.length - seed.length;
+        int draws = 0;
+
+        for (int i = ids.length - 1; i >= first; i--) {
+            historySize = Wordogram.pushHistory(history, historySize, model.getOrder(), ids[i]);
+        }
+
+        while (true) {
+            int state = reverse.findState(history, historySize);
+            int prevId = smart ? reverse.nextWeighted(state, random) : reverse.nextUniform(state, random);
+            draws++;
 
-            if ((sb.length() + word.length() + prefix.length()) > charCountMax) {
+            if (prevId < 0 || prevId == Wordogram.END_ID) {
                 break;
             }
 
-            if (!prefix.isEmpty()) {
-                sb.append(prefix);
+            charsLeft -= model.getWords().length(prevId) + 1;
+
+            if (charsLeft < 0) {
+                break;
             }
 
-            if (Wordogram.TOKEN_END.equals(prevWord) || sb.length() == 0) {
-                sb.append(StringUtils.capitalize(word));
-            } else {
-                sb.append(word);
+            if (first == 0) {
+                int[] grown = new int[ids.length * 2];
+                System.arraycopy(ids, 0, grown, ids.length, ids.length);
+                first = ids.length;
+                ids = grown;
             }
 
-            prevWord = word;
-            word = getNextWord(word);
+            ids[--first] = prevId;
+            historySize = Wordogram.pushHistory(history, historySize, model.getOrder(), prevId);
         }
 
-        if (!Wordogram.TOKEN_END.equals(prevWord) && sb.length() < charCountMax) {
-            sb.append(Wordogram.TOKEN_END);
+        StringBuilder sb = new StringBuilder(options.getCharCountMax());
+        draws += appendWords(sb, 0, options, ids[first], -1, ids, first + 1, ids.length, random, history);
+
+        if (Metrics.global().isEnabled()) {
+            Metrics.global().recordGeneration(System.nanoTime() - startTime, draws);
         }
 
         return sb.toString();
     }
 
-    public boolean isUseSmartNextWord() {
-        return useSmartNextWord;
+    /**
+     * Returns lazy walk over word ids which starts with the first word of the options
+     * or a random first word of a sentence, the char limit of the options is not used.
+     * <p>
+     * The first word is resolved like in {@link #generate(GenerationOptions)}, the walk is empty
+     * when the first word is unknown to the model.
+     */
+    public ChainWalk walk(GenerationOptions options, StopCondition stop) {
+        Random random = randoms.get();
+        int firstId = findFirstWord(options.getFirstWord(), options.isSmartNextWord(), random);
+
+        if (StringUtils.isBlank(options.getFirstWord())) {
+            firstId = model.size() > 0 ? getNextWord(Wordogram.END_ID, options.isSmartNextWord(), random) : -1;
+        }
+
+        return new ChainWalk(model, firstId, options.isSmartNextWord(), random, stop);
+    }
+
+    /**
+     * Same as {@link #walk(GenerationOptions, StopCondition)} but returns the words.
+     */
+    public Iterator<String> words(GenerationOptions options, StopCondition stop) {
+        ChainWalk walk = walk(options, stop);
+
+        return new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return walk.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return model.getWord(walk.nextInt());
+            }
+        };
+    }
+
+    public IntStream streamIds(GenerationOptions options, StopCondition stop) {
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(walk(options, stop),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
-    public void setUseSmartNextWord(boolean useSmartNextWord) {
-        this.useSmartNextWord = useSmartNextWord;
+    public Stream<String> stream(GenerationOptions options, StopCondition stop) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(words(options, stop),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
-    private String selectFirstWord(String firstWord) {
-        if (StringUtils.isBlank(firstWord)) {
-            return getFirstWord();
+    /**
+     * Writes the count of texts to the writer one per line.
+     */
+    public void generateBatch(GenerationOptions options, int count, Writer writer) throws IOException {
+        generateBatch(options, count, 1, writer);
+    }
+
+    /**
+     * Writes the count of texts to the writer one per line using several threads.
+     * <p>
+     * Every thread generates texts into its own reused buffer and passes the buffer to the writer
+     * when it is full, so memory use does not depend on the count and lines of different threads
+     * are never mixed. With several threads the order of texts is not defined.
+     */
+    public void generateBatch(GenerationOptions options, int count, int threadCount,
+                              Writer writer) throws IOException {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threadCount);
+        }
+
+        if (threadCount == 1 || count < threadCount) {
+            writeTexts(options, count, writer);
+            writer.flush();
+
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "generator");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+
+            for (int i = 0; i < threadCount; i++) {
+                int taskCount = count / threadCount + (i < count % threadCount ? 1 : 0);
+
+                results.add(executor.submit(() -> {
+                    writeTexts(options, taskCount, writer);
+
+                    return null;
+                }));
+            }
+
+            for (Future<Void> result : results) {
+                result.get();
+            }
+
+            writer.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generation was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeTexts(GenerationOptions options, int count, Writer writer) throws IOException {
+        Random random = randoms.get();
+        int[] history = new int[model.getOrder()];
+        StringBuilder sb = new StringBuilder(BATCH_CHUNK_SIZE + options.getCharCountMax() + 1);
+
+        for (int i = 0; i < count; i++) {
+            appendMeasuredText(sb, options, random, history);
+            sb.append('\n');
+
+            if (sb.length() >= BATCH_CHUNK_SIZE) {
+                write(writer, sb);
+            }
         }
 
-        if (words.containsKey(firstWord)) {
-            return firstWord;
+        write(writer, sb);
+    }
+
+    private static void write(Writer writer, StringBuilder sb) throws IOException {
+        synchronized (writer) {
+            writer.append(sb);
         }
 
-        firstWord = firstWord.toLowerCase();
+        sb.setLength(0);
+    }
+
+    private void appendMeasuredText(StringBuilder sb, GenerationOptions options, Random random, int[] history) {
+        Metrics metrics = Metrics.global();
+
+        if (options.getCharCountMin() > 0) {
+            appendConstrainedText(sb, options, random, history);
+        } else if (metrics.isEnabled()) {
+            long startTime = System.nanoTime();
+            int draws = appendText(sb, options, random, history);
+            metrics.recordGeneration(System.nanoTime() - startTime, draws);
+        } else {
+            appendText(sb, options, random, history);
+        }
+    }
 
-        if (words.containsKey(firstWord)) {
-            return firstWord;
+    /**
+     * Appends a text ending with a sentence when it is between min and max chars long. Texts are steered
+     * to such an end, so a candidate is rarely dropped, and the text is cut at max length like by
+     * {@link #appendText} when no candidate ended so.
+     */
+    private void appendConstrainedText(StringBuilder sb, GenerationOptions options, Random random, int[] history) {
+        Metrics metrics = Metrics.global();
+        long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
+        int start = sb.length();
+        int draws = 0;
+        int candidates = 0;
+
+        while (sb.length() == start && candidates < MAX_CANDIDATES) {
+            draws += appendText(sb, options, random, history);
+            candidates++;
         }
 
-        firstWord = StringUtils.capitalize(firstWord);
+        if (sb.length() == start) {
+            draws += appendText(sb, options.withCharCountMin(0), random, history);
+        }
 
-        return firstWord;
+        if (metrics.isEnabled()) {
+            metrics.recordGeneration(System.nanoTime() - startTime, draws);
+            metrics.recordCandidates(candidates);
+        }
     }
 
-    private String makePrefix(String nextWord, String prevWord) {
-        if (prevWord != null && !Wordogram.TOKEN_END.equals(nextWord)) {
-            if (!Wordogram.TOKEN_END.equals(prevWord) && commaTokens.contains(nextWord)) {
-                return ", ";
+    /**
+     * Appends a text of at most charCountMax chars starting with the first word of the options
+     * or a random first word of a sentence.
+     *
+     * @return count of random draws of next words
+     */
+    private int appendText(StringBuilder sb, GenerationOptions options, Random random, int[] history) {
+        int start = sb.length();
+        int charCountMax = options.getCharCountMax();
+        boolean smart = options.isSmartNextWord();
+        String firstWord = options.getFirstWord();
+        int wordId = findFirstWord(firstWord, smart, random);
+        int prevId = -1;
+        int draws = 0;
+
+        if (wordId < 0) {
+            if (!StringUtils.isBlank(firstWord)) {
+                if (firstWord.length() > charCountMax) {
+                    return draws;
+                }
+
+                // the model knows nothing about the word, so the text goes on like a new sentence after it
+                sb.append(firstWord);
+                capitalize(sb, start);
+                prevId = SEED_ID;
             }
 
-            return " ";
+            wordId = model.size() > 0 ? getNextWord(Wordogram.END_ID, smart, random) : -1;
+            draws++;
         }
 
-        return "";
+        if (options.getCharCountMin() > 0) {
+            return draws + appendSteeredWords(sb, start, options, wordId, prevId, random, history);
+        }
+
+        return draws + appendWords(sb, start, options, wordId, prevId, null, 0, 0, random, history);
     }
 
-    private String getFirstWord() {
-        return getNextWord(Wordogram.TOKEN_END);
+    /**
+     * Appends the word and next words till the char limit or the end of the chain,
+     * next words are taken from the given ids while there are any and drawn after them.
+     *
+     * @param start   position of the text in the buffer
+     * @param prevId  id of the word written before the word or -1 if the text starts with it
+     * @param ids     words following the word or null
+     * @param idIndex position of the word following the word in the ids
+     * @param idEnd   position after the last word following the word in the ids
+     * @return count of random draws of next words
+     */
+    private int appendWords(StringBuilder sb, int start, GenerationOptions options, int wordId, int prevId,
+                            int[] ids, int idIndex, int idEnd, Random random, int[] history) {
+        int charCountMax = options.getCharCountMax();
+        boolean smart = options.isSmartNextWord();
+        StringTable words = model.getWords();
+        int draws = 0;
+
+        history[0] = Wordogram.END_ID;
+        int historySize = 1;
+
+        while (wordId >= 0) {
+            int prefixLength = getPrefixLength(wordId, prevId);
+
+            if ((sb.length() - start + words.length(wordId) + prefixLength) > charCountMax) {
+                break;
+            }
+
+            appendWord(sb, start, wordId, prevId, prefixLength);
+            prevId = wordId;
+            historySize = Wordogram.pushHistory(history, historySize, model.getOrder(), wordId);
+
+            if (idIndex < idEnd) {
+                wordId = ids[idIndex++];
+            } else {
+                wordId = getNextWord(model.findState(history, historySize), smart, random);
+                draws++;
+            }
+        }
+
+        if (prevId != Wordogram.END_ID && sb.length() - start < charCountMax) {
+            sb.append(Wordogram.TOKEN_END);
+        }
+
+        return draws;
     }
 
-    private String getNextWord(String word) {
-        return useSmartNextWord ? getNextWordSmart(word) : getNextWordSimple(word);
+    /**
+     * Appends the word and next words drawn with {@link #getSteeredNextWord} till the end of a sentence
+     * between min and max chars of the text. The buffer is reset to the start of the text
+     * when the text cannot end so.
+     *
+     * @param start  position of the text in the buffer
+     * @param prevId id of the word written before the word or -1 if the text starts with it
+     * @return count of random draws of next words
+     */
+    private int appendSteeredWords(StringBuilder sb, int start, GenerationOptions options, int wordId, int prevId,
+                                   Random random, int[] history) {
+        int charCountMin = options.getCharCountMin();
+        int charCountMax = options.getCharCountMax();
+        SentenceLengths lengths = model.getSentenceLengths();
+        StringTable words = model.getWords();
+        int draws = 0;
+
+        history[0] = Wordogram.END_ID;
+        int historySize = 1;
+
+        while (wordId >= 0) {
+            int prefixLength = getPrefixLength(wordId, prevId);
+            int length = sb.length() - start + prefixLength + words.length(wordId);
+
+            if (length > charCountMax) {
+                break;
+            }
+
+            if (wordId == Wordogram.END_ID && length >= charCountMin) {
+                sb.append(Wordogram.TOKEN_END);
+
+                return draws;
+            }
+
+            appendWord(sb, start, wordId, prevId, prefixLength);
+            prevId = wordId;
+            historySize = Wordogram.pushHistory(history, historySize, model.getOrder(), wordId);
+            wordId = getSteeredNextWord(model.findState(history, historySize), sb.length() - start, prevId,
+                    options, lengths, random);
+            draws++;
+        }
+
+        sb.setLength(start);
+
+        return draws;
     }
 
     /**
-     * Returns next word according to frequency of next words.
+     * Returns next word of the state or -1 if no next word fits. Next words whose sentences are expected
+     * to end beyond the max length are drawn the less likely the farther they go, so the end of sentence
+     * becomes likely when the text approaches the max length.
+     * <p>
+     * A word is drawn as usual and kept with the probability of its {@link #getSteeringFactor factor},
+     * the row of the state is scanned only when several draws in a row are dropped.
+     *
+     * @param length length of the text written so far
      */
-    private String getNextWordSmart(String word) {
-        Map<String, Integer> map = words.get(word);
+    private int getSteeredNextWord(int state, int length, int prevId, GenerationOptions options,
+                                   SentenceLengths lengths, Random random) {
+        boolean smart = options.isSmartNextWord();
+
+        if (length + lengths.getReach(state) + 1 <= options.getCharCountMax()) {
+            // no next word is expected to go beyond the max length
+            return getNextWord(state, smart, random);
+        }
 
-        if (map != null) {
-            Map<String, Integer[]> wordRanges = new HashMap<>();
-            int maxEdge = 0;
+        for (int i = 0; i < STEERING_DRAWS; i++) {
+            int nextId = getNextWord(state, smart, random);
 
-            for (String nextWord : map.keySet()) {
-                int nextMaxEdge = maxEdge + map.get(nextWord);
-                wordRanges.put(nextWord, new Integer[]{maxEdge, nextMaxEdge - 1});
-                maxEdge = nextMaxEdge;
+            if (nextId < 0) {
+                return -1;
             }
 
-            int index = random.nextInt(maxEdge);
+            double factor = getSteeringFactor(nextId, length, prevId, options, lengths);
 
-            for (String nextWord : wordRanges.keySet()) {
-                Integer[] range = wordRanges.get(nextWord);
+            if (factor >= 1 || random.nextDouble() < factor) {
+                return nextId;
+            }
+        }
 
-                if (index >= range[0] && index <= range[1]) {
-                    return nextWord;
+        int count = model.getSuccessorCount(state);
+        double rawTotal = 0;
+        double total = 0;
+
+        for (int i = 0; i < count; i++) {
+            double weight = smart ? model.getSuccessorWeight(state, i) : 1;
+            rawTotal += weight;
+            total += weight * getSteeringFactor(model.getSuccessor(state, i), length, prevId, options, lengths);
+        }
+
+        if (state >= model.size() && total < rawTotal * BACK_OFF_SHARE && prevId >= 0) {
+            // next words seen after the longer state hardly fit, the state of the last word has more of them
+            return getSteeredNextWord(prevId, length, prevId, options, lengths, random);
+        }
+
+        if (total <= 0) {
+            return -1;
+        }
+
+        double index = random.nextDouble() * total;
+        int last = -1;
+
+        for (int i = 0; i < count; i++) {
+            int nextId = model.getSuccessor(state, i);
+            double weight = (smart ? model.getSuccessorWeight(state, i) : 1)
+                    * getSteeringFactor(nextId, length, prevId, options, lengths);
+
+            if (weight > 0) {
+                last = nextId;
+                index -= weight;
+
+                if (index < 0) {
+                    break;
                 }
             }
+        }
+
+        return last;
+    }
+
+    /**
+     * Returns how much the chance of the next word is kept by steering, from 0 for a word which
+     * does not fit to 1 for a word whose sentence is expected to end within the max length.
+     */
+    private double getSteeringFactor(int nextId, int length, int prevId, GenerationOptions options,
+                                     SentenceLengths lengths) {
+        int charCountMin = options.getCharCountMin();
+        int charCountMax = options.getCharCountMax();
+
+        if (nextId == Wordogram.END_ID) {
+            if (length + 1 > charCountMax) {
+                return 0;
+            }
+
+            if (length + 1 >= charCountMin) {
+                // the text ends here
+                return 1;
+            }
+        } else if (length + getPrefixLength(nextId, prevId) + model.getWords().length(nextId) + 1 > charCountMax) {
+            // even the period after the word does not fit
+            return 0;
+        }
+
+        float overrun = length + lengths.getCost(nextId) - charCountMax;
 
-            throw new RuntimeException("Unreachable code reached!");
+        if (overrun <= 0) {
+            return 1;
         }
 
-        return null;
+        return Math.exp(-overrun / Math.max(4, (charCountMax - charCountMin) / 4.0));
     }
 
     /**
-     * Returns simply random next word.
+     * Appends the word with the separator before it, a word starting the text or a sentence is capitalized.
      */
-    private String getNextWordSimple(String word) {
-        Map<String, Integer> map = words.get(word);
+    private void appendWord(StringBuilder sb, int start, int wordId, int prevId, int prefixLength) {
+        if (prefixLength == 2) {
+            sb.append(", ");
+        } else if (prefixLength == 1) {
+            sb.append(' ');
+        }
 
-        if (map != null) {
-            ArrayList<String> wrds = new ArrayList<String>(map.keySet());
+        int wordStart = sb.length();
+        model.getWords().appendTo(wordId, sb);
 
-            return wrds.get(random.nextInt(wrds.size()));
+        if (prevId == Wordogram.END_ID || wordStart == start) {
+            capitalize(sb, wordStart);
         }
+    }
+
+    /**
+     * Returns id of the first word resolved by the {@link SeedIndex} of the model
+     * or -1 if the first word is not set or unknown.
+     */
+    private int findFirstWord(String firstWord, boolean smart, Random random) {
+        if (StringUtils.isBlank(firstWord)) {
+            return -1;
+        }
+
+        return model.getSeedIndex().find(firstWord, smart, random);
+    }
+
+    /**
+     * Returns length of the separator written before the next word: 0, 1 for a space or 2 for a comma.
+     */
+    private int getPrefixLength(int nextId, int prevId) {
+        if (prevId >= 0 && nextId != Wordogram.END_ID) {
+            if (prevId != Wordogram.END_ID && isCommaToken(nextId)) {
+                return 2;
+            }
+
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private boolean isCommaToken(int id) {
+        for (int commaId : commaIds) {
+            if (commaId == id) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void capitalize(StringBuilder sb, int pos) {
+        char ch = sb.charAt(pos);
+
+        if (!Character.isTitleCase(ch)) {
+            sb.setCharAt(pos, Character.toTitleCase(ch));
+        }
+    }
 
-        return null;
+    private int getNextWord(int state, boolean smart, Random random) {
+        return smart ? model.nextWeighted(state, random) : model.nextUniform(state, random);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,274 @@
+package io.arusland.text.markov;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Open-addressing hash map from non-negative long keys to int values.
+ * <p>
+ * Keys and values live in two parallel primitive buffers, so there are no per-entry objects
+ * and values are updated in place. The buffers are allocated in a {@link Storage}, heap or off heap.
+ * Absent keys are reported as <code>0</code> by {@link #get(long)}.
+ *
+ * @since 2026-10-18
+ */
+public class LongIntHashMap {
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.7f;
+    private final Storage storage;
+    private LongBuffer keys;
+    private IntBuffer values;
+    private int size;
+    private int threshold;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        this(expectedSize, Storage.getDefault());
+    }
+
+    public LongIntHashMap(int expectedSize, Storage storage) {
+        this.storage = storage;
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Returns map of the entries of table slots taken from {@link #getKeys()} and {@link #getValues()},
+     * the slots are copied as they are, so no key is hashed again.
+     */
+    static LongIntHashMap copyOf(LongBuffer keys, IntBuffer values, Storage storage) {
+        LongIntHashMap map = new LongIntHashMap(16, storage);
+        map.keys = storage.allocateLongs(keys.limit());
+        map.values = storage.allocateInts(values.limit());
+        map.threshold = (int) (keys.limit() * LOAD_FACTOR);
+
+        for (int i = 0; i < keys.limit(); i++) {
+            long key = keys.get(i);
+            map.keys.put(i, key);
+            map.values.put(i, values.get(i));
+
+            if (key != EMPTY) {
+                map.size++;
+            }
+        }
+
+        return map;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public int get(long key) {
+        return get(keys, values, key);
+    }
+
+    public boolean containsKey(long key) {
+        int mask = keys.limit() - 1;
+        int index = hash(key) & mask;
+
+        while (true) {
+            long current = keys.get(index);
+
+            if (current == key) {
+                return true;
+            }
+
+            if (current == EMPTY) {
+                return false;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds delta to the value of the key and returns the previous value (0 if the key was absent).
+     */
+    public int add(long key, int delta) {
+        int index = indexFor(key);
+
+        if (keys.get(index) == key) {
+            int prev = values.get(index);
+            values.put(index, prev + delta);
+
+            return prev;
+        }
+
+        insert(index, key, delta);
+
+        return 0;
+    }
+
+    public void put(long key, int value) {
+        int index = indexFor(key);
+
+        if (keys.get(index) == key) {
+            values.put(index, value);
+        } else {
+            insert(index, key, value);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        for (int i = 0; i < keys.limit(); i++) {
+            keys.put(i, EMPTY);
+            values.put(i, 0);
+        }
+
+        size = 0;
+    }
+
+    public void forEach(Procedure procedure) {
+        for (int i = 0; i < keys.limit(); i++) {
+            long key = keys.get(i);
+
+            if (key != EMPTY) {
+                procedure.apply(key, values.get(i));
+            }
+        }
+    }
+
+    /**
+     * Returns approximate size of the table in bytes, it is taken from the heap or off heap
+     * according to the {@link #getStorage() storage}.
+     */
+    public long sizeInBytes() {
+        return 8L * keys.limit() + 4L * values.limit();
+    }
+
+    /**
+     * Returns the key slots, empty slots hold -1.
+     */
+    LongBuffer getKeys() {
+        return keys.duplicate();
+    }
+
+    IntBuffer getValues() {
+        return values.duplicate();
+    }
+
+    /**
+     * Looks the key up in table slots taken from {@link #getKeys()} and {@link #getValues()},
+     * returns 0 when the key is absent.
+     */
+    static int get(LongBuffer keys, IntBuffer values, long key) {
+        int mask = keys.limit() - 1;
+        int index = hash(key) & mask;
+
+        while (true) {
+            long current = keys.get(index);
+
+            if (current == key) {
+                return values.get(index);
+            }
+
+            if (current == EMPTY) {
+                return 0;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    public static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    public static int high(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int low(long key) {
+        return (int) key;
+    }
+
+    private int indexFor(long key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative key: " + key);
+        }
+
+        int mask = keys.limit() - 1;
+        int index = hash(key) & mask;
+
+        while (true) {
+            long current = keys.get(index);
+
+            if (current == key || current == EMPTY) {
+                return index;
+            }
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void insert(int index, long key, int value) {
+        keys.put(index, key);
+        values.put(index, value);
+
+        if (++size > threshold) {
+            rehash(keys.limit() << 1);
+        }
+    }
+
+    private void rehash(int capacity) {
+        LongBuffer oldKeys = keys;
+        IntBuffer oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+
+        for (int i = 0; i < oldKeys.limit(); i++) {
+            long key = oldKeys.get(i);
+
+            if (key != EMPTY) {
+                int index = hash(key) & mask;
+
+                while (keys.get(index) != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+
+                keys.put(index, key);
+                values.put(index, oldValues.get(i));
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = storage.allocateLongs(capacity);
+        values = storage.allocateInts(capacity);
+
+        for (int i = 0; i < capacity; i++) {
+            keys.put(i, EMPTY);
+        }
+
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 16;
+
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+
+        return (int) key;
+    }
+
+    public interface Procedure {
+        void apply(long key, int value);
+    }
+}
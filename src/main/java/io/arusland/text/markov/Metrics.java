@@ -0,0 +1,211 @@
+package io.arusland.text.markov;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counters of parsing and generation shared by all parsers and generators.
+ * <p>
+ * Parsers record once per parsed text and generators once per generated text, each record
+ * is a few {@link LongAdder} increments, so the metrics can stay enabled. When disabled
+ * the only cost is one volatile read per text.
+ *
+ * @since 2026-10-18
+ */
+public final class Metrics implements MetricsMXBean {
+    public static final String OBJECT_NAME = "io.arusland.text:type=Metrics";
+    private static final Metrics GLOBAL = new Metrics();
+    private volatile boolean enabled;
+    private volatile Supplier<ChainModel> models = () -> null;
+    private volatile long startTime = System.nanoTime();
+    private final LongAdder parsedBytes = new LongAdder();
+    private final LongAdder parsedTokens = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder generatedTexts = new LongAdder();
+    private final LongAdder samplingDraws = new LongAdder();
+    private final LongAdder constrainedTexts = new LongAdder();
+    private final LongAdder constrainedCandidates = new LongAdder();
+    private final LatencyHistogram generationLatency = new LatencyHistogram();
+
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Registers the metrics as a platform MBean named {@link #OBJECT_NAME} unless it is already registered.
+     */
+    public void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(OBJECT_NAME);
+
+        if (!server.isRegistered(name)) {
+            server.registerMBean(this, name);
+        }
+    }
+
+    /**
+     * Sets source of the current model for memory and fan-out statistics.
+     */
+    public void setModels(Supplier<ChainModel> models) {
+        this.models = models;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void recordParse(long bytes, long tokens, long nanos) {
+        parsedBytes.add(bytes);
+        parsedTokens.add(tokens);
+        parseNanos.add(nanos);
+    }
+
+    public void recordGeneration(long nanos, int draws) {
+        generatedTexts.increment();
+        samplingDraws.add(draws);
+        generationLatency.record(nanos);
+    }
+
+    /**
+     * Records a text generated within a length window and count of candidates generated for it.
+     */
+    public void recordCandidates(int candidates) {
+        constrainedTexts.increment();
+        constrainedCandidates.add(candidates);
+    }
+
+    /**
+     * Returns bytes read from channels, parsed strings are counted in tokens only.
+     */
+    @Override
+    public long getParsedBytes() {
+        return parsedBytes.sum();
+    }
+
+    @Override
+    public long getParsedTokens() {
+        return parsedTokens.sum();
+    }
+
+    /**
+     * Returns bytes parsed per second of time spent in parsing.
+     */
+    @Override
+    public double getParseBytesPerSecond() {
+        return perSecond(parsedBytes.sum(), parseNanos.sum());
+    }
+
+    /**
+     * Returns tokens parsed and added to wordograms per second of time spent in parsing.
+     */
+    @Override
+    public double getParseTokensPerSecond() {
+        return perSecond(parsedTokens.sum(), parseNanos.sum());
+    }
+
+    @Override
+    public long getGeneratedTexts() {
+        return generatedTexts.sum();
+    }
+
+    /**
+     * Returns texts generated per second since the metrics were reset.
+     */
+    @Override
+    public double getGeneratedTextsPerSecond() {
+        return perSecond(generatedTexts.sum(), System.nanoTime() - startTime);
+    }
+
+    @Override
+    public double getSamplingDrawsPerText() {
+        long texts = generatedTexts.sum();
+
+        return texts > 0 ? samplingDraws.sum() / (double) texts : 0;
+    }
+
+    /**
+     * Returns candidates generated per text generated within a length window, 1 is the best.
+     */
+    @Override
+    public double getCandidatesPerConstrainedText() {
+        long texts = constrainedTexts.sum();
+
+        return texts > 0 ? constrainedCandidates.sum() / (double) texts : 0;
+    }
+
+    @Override
+    public long getGenerationLatencyP50Micros() {
+        return generationLatency.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getGenerationLatencyP99Micros() {
+        return generationLatency.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getGenerationLatencyP999Micros() {
+        return generationLatency.getPercentile(99.9) / 1000;
+    }
+
+    @Override
+    public long getModelMemoryBytes() {
+        ChainModel model = models.get();
+
+        return model != null ? model.sizeInBytes() : 0;
+    }
+
+    /**
+     * Returns counts of states by count of next words: states without next words,
+     * with 1, 2-3, 4-7 and so on.
+     */
+    @Override
+    public long[] getFanOutHistogram() {
+        ChainModel model = models.get();
+
+        if (model == null) {
+            return new long[0];
+        }
+
+        long[] histogram = new long[32];
+        int maxBucket = 0;
+
+        for (int state = 0; state < model.getStateCount(); state++) {
+            int bucket = 32 - Integer.numberOfLeadingZeros(model.getSuccessorCount(state));
+            histogram[bucket]++;
+            maxBucket = Math.max(maxBucket, bucket);
+        }
+
+        long[] result = new long[maxBucket + 1];
+        System.arraycopy(histogram, 0, result, 0, result.length);
+
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        parsedBytes.reset();
+        parsedTokens.reset();
+        parseNanos.reset();
+        generatedTexts.reset();
+        samplingDraws.reset();
+        constrainedTexts.reset();
+        constrainedCandidates.reset();
+        generationLatency.reset();
+        startTime = System.nanoTime();
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos > 0 ? count / (nanos / 1e9) : 0;
+    }
+}
@@ -0,0 +1,40 @@
+package io.arusland.text.markov;
+
+/**
+ * Management interface of {@link Metrics}.
+ *
+ * @since 2026-10-18
+ */
+public interface MetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    long getParsedBytes();
+
+    long getParsedTokens();
+
+    double getParseBytesPerSecond();
+
+    double getParseTokensPerSecond();
+
+    long getGeneratedTexts();
+
+    double getGeneratedTextsPerSecond();
+
+    double getSamplingDrawsPerText();
+
+    double getCandidatesPerConstrainedText();
+
+    long getGenerationLatencyP50Micros();
+
+    long getGenerationLatencyP99Micros();
+
+    long getGenerationLatencyP999Micros();
+
+    long getModelMemoryBytes();
+
+    long[] getFanOutHistogram();
+
+    void reset();
+}
@@ -0,0 +1,287 @@
+package io.arusland.text.markov;
+
+import java.nio.Buffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Changes of a {@link Wordogram} since a model was built from it: added counts of transitions,
+ * new states of several words and new words, see {@link Wordogram#takeDelta()}.
+ * <p>
+ * A delta is applied to the model without the wordogram, so an up to date model is built while
+ * the wordogram keeps changing. Words and states are never renumbered by the changes a delta records,
+ * so rows of states the delta does not touch are copied as they are and only touched rows are merged.
+ *
+ * @since 2026-10-18
+ */
+final class ModelDelta {
+    /**
+     * Added counts keyed by packed (wordogram state, next word id).
+     */
+    private final LongIntHashMap transitions = new LongIntHashMap();
+    private final int firstWord;
+    private final int firstContext;
+    /**
+     * Keys of new states of several words in the order they were added.
+     */
+    private long[] contexts = new long[16];
+    private int contextCount;
+    private int wordCount;
+    /**
+     * Words written in the model, names resolved, for new words and words whose counts changed.
+     */
+    private int[] changedIds;
+    private String[] changedWords;
+
+    ModelDelta(int firstWord, int firstContext) {
+        this.firstWord = firstWord;
+        this.firstContext = firstContext;
+    }
+
+    void addTransition(int state, int word, int count) {
+        transitions.add(LongIntHashMap.key(state, word), count);
+    }
+
+    void addContext(long key) {
+        if (contextCount == contexts.length) {
+            contexts = Arrays.copyOf(contexts, contextCount << 1);
+        }
+
+        contexts[contextCount++] = key;
+    }
+
+    /**
+     * Returns count of changed transitions.
+     */
+    int size() {
+        return transitions.size();
+    }
+
+    /**
+     * Takes how the new words and the words met since the delta was started are written in the model,
+     * every word met is a successor of a changed transition.
+     */
+    void freeze(Vocabulary vocabulary, NameIndex names) {
+        wordCount = vocabulary.size();
+        int[] ids = new int[transitions.size() + wordCount - firstWord];
+        int count = 0;
+
+        for (int id = firstWord; id < wordCount; id++) {
+            ids[count++] = id;
+        }
+
+        int[] touched = new int[transitions.size()];
+        int[] touchedCount = {0};
+        transitions.forEach((key, value) -> touched[touchedCount[0]++] = LongIntHashMap.low(key));
+        Arrays.sort(touched);
+
+        for (int i = 0; i < touched.length; i++) {
+            if ((i == 0 || touched[i] != touched[i - 1]) && touched[i] < firstWord) {
+                ids[count++] = touched[i];
+            }
+        }
+
+        changedIds = Arrays.copyOf(ids, count);
+        changedWords = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            String name = names.getName(changedIds[i]);
+            changedWords[i] = name != null ? name : vocabulary.getWord(changedIds[i]);
+        }
+    }
+
+    /**
+     * Writes words of the frozen delta into the words of the previous model, which are grown
+     * for the new words, and returns true if any word was added or written differently.
+     */
+    boolean applyWords(String[] words) {
+        boolean changed = wordCount > firstWord;
+
+        for (int i = 0; i < changedIds.length; i++) {
+            if (!changedWords[i].equals(words[changedIds[i]])) {
+                words[changedIds[i]] = changedWords[i];
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Builds model of the wordogram at the time the delta was frozen from the model built when
+     * the delta was started.
+     *
+     * @param words words of the new model, see {@link #applyWords(String[])}
+     */
+    ChainModel applyTo(ChainModel model, StringTable words, Storage storage) {
+        int oldSize = model.size();
+        int oldContexts = model.getStateCount() - oldSize;
+
+        if (oldSize != firstWord || oldContexts != firstContext || words.size() != wordCount) {
+            throw new IllegalStateException("Delta of " + firstWord + " words and " + firstContext
+                    + " states cannot be applied to model of " + oldSize + " words and " + oldContexts + " states");
+        }
+
+        int size = wordCount;
+        int stateTotal = size + firstContext + contextCount;
+        // changed transitions sorted by model state and next word, as rows are
+        long[] changes = new long[transitions.size()];
+        int[] changeCount = {0};
+
+        transitions.forEach((key, count) -> changes[changeCount[0]++] = LongIntHashMap.key(
+                toModelState(LongIntHashMap.high(key), size), LongIntHashMap.low(key)));
+        Arrays.sort(changes);
+
+        IntBuffer oldOffsets = model.getOffsets();
+        IntBuffer oldSuccessors = model.getSuccessors();
+        IntBuffer oldWeights = model.getCumulativeWeights();
+        int[] offsets = new int[stateTotal + 1];
+        int next = 0;
+
+        for (int state = 0; state < stateTotal; state++) {
+            int oldState = toOldState(state, oldSize, size);
+            int length = oldState >= 0 ? model.getSuccessorCount(oldState) : 0;
+
+            for (; next < changes.length && LongIntHashMap.high(changes[next]) == state; next++) {
+                if (oldState < 0 || model.getTransitionWeight(oldState, LongIntHashMap.low(changes[next])) == 0) {
+                    length++;
+                }
+            }
+
+            offsets[state + 1] = offsets[state] + length;
+        }
+
+        int[] successors = new int[offsets[stateTotal]];
+        int[] cumulativeWeights = new int[successors.length];
+        next = 0;
+        // rows of untouched states follow each other in both models, so they are copied in runs
+        int runStart = 0;
+        int runTarget = 0;
+
+        for (int state = 0; state < stateTotal; state++) {
+            if (next == changes.length || LongIntHashMap.high(changes[next]) != state) {
+                continue;
+            }
+
+            int oldState = toOldState(state, oldSize, size);
+            int pos = oldState >= 0 ? oldOffsets.get(oldState) : runStart + offsets[state] - runTarget;
+            int end = oldState >= 0 ? oldOffsets.get(oldState + 1) : pos;
+            int target = offsets[state];
+            // cumulative weights start anew in every row, so copied rows are kept as they are
+            copy(oldSuccessors, runStart, successors, runTarget, target - runTarget);
+            copy(oldWeights, runStart, cumulativeWeights, runTarget, target - runTarget);
+            int weight = 0;
+            int previousWeight = 0;
+
+            while (pos < end || (next < changes.length && LongIntHashMap.high(changes[next]) == state)) {
+                int oldWord = pos < end ? oldSuccessors.get(pos) : Integer.MAX_VALUE;
+                int newWord = next < changes.length && LongIntHashMap.high(changes[next]) == state
+                        ? LongIntHashMap.low(changes[next]) : Integer.MAX_VALUE;
+                int word = Math.min(oldWord, newWord);
+
+                if (oldWord == word) {
+                    weight += oldWeights.get(pos) - previousWeight;
+                    previousWeight = oldWeights.get(pos);
+                    pos++;
+                }
+
+                if (newWord == word) {
+                    weight += transitions.get(LongIntHashMap.key(toWordogramState(state, size), word));
+                    next++;
+                }
+
+                successors[target] = word;
+                cumulativeWeights[target++] = weight;
+            }
+
+            runStart = end;
+            runTarget = target;
+        }
+
+        copy(oldSuccessors, runStart, successors, runTarget, successors.length - runTarget);
+        copy(oldWeights, runStart, cumulativeWeights, runTarget, successors.length - runTarget);
+
+        LongBuffer contextKeys;
+        IntBuffer contextValues;
+
+        if (size == oldSize && contextCount == 0) {
+            // no state is renumbered or added, the immutable tables are shared
+            contextKeys = model.getContextKeys();
+            contextValues = model.getContextValues();
+        } else if (size == oldSize) {
+            // no state is renumbered, the new states are added to a copy of the table
+            LongIntHashMap modelContexts = LongIntHashMap.copyOf(model.getContextKeys(), model.getContextValues(),
+                    storage);
+            putContexts(modelContexts, size);
+            contextKeys = modelContexts.getKeys();
+            contextValues = modelContexts.getValues();
+        } else {
+            LongIntHashMap modelContexts = new LongIntHashMap(firstContext + contextCount, storage);
+            LongBuffer keys = model.getContextKeys();
+            IntBuffer values = model.getContextValues();
+
+            for (int i = 0; i < keys.limit(); i++) {
+                long key = keys.get(i);
+
+                if (key >= 0) {
+                    modelContexts.put(LongIntHashMap.key(toNewState(LongIntHashMap.high(key), oldSize, size),
+                            LongIntHashMap.low(key)), toNewState(values.get(i), oldSize, size));
+                }
+            }
+
+            putContexts(modelContexts, size);
+            contextKeys = modelContexts.getKeys();
+            contextValues = modelContexts.getValues();
+        }
+
+        IntBuffer modelOffsets = storage.place(IntBuffer.wrap(offsets));
+        IntBuffer modelSuccessors = storage.place(IntBuffer.wrap(successors));
+        IntBuffer modelWeights = storage.place(IntBuffer.wrap(cumulativeWeights));
+
+        return new ChainModel(words, model.getOrder(), modelOffsets, modelSuccessors, modelWeights,
+                contextKeys, contextValues,
+                StatsIndex.build(words, modelOffsets, modelSuccessors, modelWeights, storage));
+    }
+
+    private void putContexts(LongIntHashMap modelContexts, int size) {
+        for (int i = 0; i < contextCount; i++) {
+            modelContexts.put(LongIntHashMap.key(toModelState(LongIntHashMap.high(contexts[i]), size),
+                    LongIntHashMap.low(contexts[i])), size + firstContext + i);
+        }
+    }
+
+    private static void copy(IntBuffer source, int from, int[] target, int to, int length) {
+        IntBuffer buffer = source.duplicate();
+        // cast to Buffer, as position(int) of IntBuffer is not in Java 8
+        ((Buffer) buffer).position(from);
+        buffer.get(target, to, length);
+    }
+
+    /**
+     * Returns state of the previous model for the state of the new one or -1 if the state is new.
+     */
+    private int toOldState(int state, int oldSize, int size) {
+        if (state < size) {
+            return state < oldSize ? state : -1;
+        }
+
+        return state - size < firstContext ? oldSize + state - size : -1;
+    }
+
+    private static int toNewState(int oldState, int oldSize, int size) {
+        return oldState < oldSize ? oldState : oldState - oldSize + size;
+    }
+
+    private static int toModelState(int state, int wordCount) {
+        return (state & Wordogram.CONTEXT_FLAG) == 0 ? state : wordCount + (state & ~Wordogram.CONTEXT_FLAG);
+    }
+
+    private static int toWordogramState(int modelState, int wordCount) {
+        return modelState < wordCount ? modelState : (modelState - wordCount) | Wordogram.CONTEXT_FLAG;
+    }
+}
@@ -0,0 +1,224 @@
+package io.arusland.text.markov;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Trained model with names, word statistics and its {@link StatsIndex} stored in a versioned binary file.
+ * <p>
+ * The file starts with a header (magic, version, order and a table of sections)
+ * followed by sections each holding one buffer of the model. Opening a file maps
+ * every section with {@link FileChannel#map}, so it costs the same regardless of
+ * the model size and the model is sampled directly from the mapped memory.
+ *
+ * @since 2026-10-18
+ */
+public final class ModelSnapshot {
+    public static final int VERSION = 2;
+    private static final int MAGIC = 0x4D4B4348;
+    private static final int SECTION_COUNT = 22;
+    private static final int HEADER_SIZE = 16 + SECTION_COUNT * 16;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    private final ChainModel model;
+    private final StringTable nameWords;
+    private final StringTable nameValues;
+    private final StringTable statWords;
+    private final IntBuffer statCounts;
+
+    private ModelSnapshot(ChainModel model, StringTable nameWords, StringTable nameValues,
+                          StringTable statWords, IntBuffer statCounts) {
+        this.model = model;
+        this.nameWords = nameWords;
+        this.nameValues = nameValues;
+        this.statWords = statWords;
+        this.statCounts = statCounts;
+    }
+
+    public static ModelSnapshot of(ChainModel model, Map<String, String> names, Map<String, Integer> stats) {
+        String[] nameKeys = names.keySet().toArray(new String[names.size()]);
+        String[] nameRaws = new String[nameKeys.length];
+
+        for (int i = 0; i < nameKeys.length; i++) {
+            nameRaws[i] = names.get(nameKeys[i]);
+        }
+
+        String[] statKeys = stats.keySet().toArray(new String[stats.size()]);
+        int[] counts = new int[statKeys.length];
+
+        for (int i = 0; i < statKeys.length; i++) {
+            counts[i] = stats.get(statKeys[i]);
+        }
+
+        return new ModelSnapshot(model,
+                StringTable.of(nameKeys, nameKeys.length, true),
+                StringTable.of(nameRaws, nameRaws.length, false),
+                StringTable.of(statKeys, statKeys.length, true),
+                IntBuffer.wrap(counts));
+    }
+
+    public static ModelSnapshot open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+
+            // called on Buffer, as the ByteBuffer overrides are not in Java 8
+            ((Buffer) header).flip();
+
+            if (header.remaining() < 16 || header.getInt() != MAGIC) {
+                throw new IOException("Not a model snapshot: " + file);
+            }
+
+            int version = header.getInt();
+
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+
+            int order = header.getInt();
+            int sectionCount = header.getInt();
+
+            if (sectionCount != SECTION_COUNT || header.remaining() < SECTION_COUNT * 16) {
+                throw new IOException("Corrupted snapshot header: " + file);
+            }
+
+            ByteBuffer[] sections = new ByteBuffer[SECTION_COUNT];
+
+            for (int i = 0; i < SECTION_COUNT; i++) {
+                long offset = header.getLong();
+                long length = header.getLong();
+
+                if (length > Integer.MAX_VALUE || offset + length > channel.size()) {
+                    throw new IOException("Corrupted or too large snapshot section " + i + ": " + file);
+                }
+
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ORDER);
+            }
+
+            StringTable words = new StringTable(sections[0].asCharBuffer(),
+                    sections[1].asIntBuffer(), sections[2].asIntBuffer());
+            IntBuffer offsets = sections[3].asIntBuffer();
+            StatsIndex statsIndex = new StatsIndex(offsets, sections[18].asIntBuffer(), sections[19].asIntBuffer(),
+                    sections[20].asIntBuffer(), sections[21].asIntBuffer());
+            ChainModel model = new ChainModel(words, order, offsets,
+                    sections[4].asIntBuffer(), sections[5].asIntBuffer(),
+                    sections[6].asLongBuffer(), sections[7].asIntBuffer(), statsIndex);
+
+            return new ModelSnapshot(model,
+                    new StringTable(sections[8].asCharBuffer(), sections[9].asIntBuffer(), sections[10].asIntBuffer()),
+                    new StringTable(sections[11].asCharBuffer(), sections[12].asIntBuffer(), sections[13].asIntBuffer()),
+                    new StringTable(sections[14].asCharBuffer(), sections[15].asIntBuffer(), sections[16].asIntBuffer()),
+                    sections[17].asIntBuffer());
+        }
+    }
+
+    public void save(File file) throws IOException {
+        Buffer[] sections = {
+                model.getWords().getChars(), model.getWords().getOffsets(), model.getWords().getIndex(),
+                model.getOffsets(), model.getSuccessors(), model.getCumulativeWeights(),
+                model.getContextKeys(), model.getContextValues(),
+                nameWords.getChars(), nameWords.getOffsets(), nameWords.getIndex(),
+                nameValues.getChars(), nameValues.getOffsets(), nameValues.getIndex(),
+                statWords.getChars(), statWords.getOffsets(), statWords.getIndex(),
+                statCounts.duplicate(),
+                model.getStatsIndex().getCounts(), model.getStatsIndex().getRanking(),
+                model.getStatsIndex().getRanks(), model.getStatsIndex().getSuccessorOrder()
+        };
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ORDER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(model.getOrder()).putInt(SECTION_COUNT);
+
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 16).order(ORDER);
+            long offset = HEADER_SIZE;
+            channel.position(offset);
+
+            for (Buffer section : sections) {
+                long length = writeSection(channel, section, chunk);
+                header.putLong(offset).putLong(length);
+                offset += align(length);
+                channel.position(offset);
+            }
+
+            ((Buffer) header).flip();
+            channel.write(header, 0);
+            channel.truncate(offset);
+        }
+    }
+
+    public ChainModel getModel() {
+        return model;
+    }
+
+    public int getNameCount() {
+        return nameWords.size();
+    }
+
+    /**
+     * Returns the name written as in the text for the lowercased word or null if the word is not a name.
+     */
+    public String getName(String word) {
+        int index = nameWords.indexOf(word);
+
+        return index >= 0 ? nameValues.get(index) : null;
+    }
+
+    /**
+     * Returns how many times the word was met in the text, 0 if never.
+     */
+    public int getCount(String word) {
+        int index = statWords.indexOf(word);
+
+        return index >= 0 ? statCounts.get(index) : 0;
+    }
+
+    private static long writeSection(FileChannel channel, Buffer section, ByteBuffer chunk) throws IOException {
+        long length = 0;
+        ((Buffer) chunk).clear();
+
+        while (section.hasRemaining()) {
+            if (chunk.remaining() < 8) {
+                length += flush(channel, chunk);
+            }
+
+            if (section instanceof IntBuffer) {
+                chunk.putInt(((IntBuffer) section).get());
+            } else if (section instanceof LongBuffer) {
+                chunk.putLong(((LongBuffer) section).get());
+            } else {
+                chunk.putChar(((CharBuffer) section).get());
+            }
+        }
+
+        return length + flush(channel, chunk);
+    }
+
+    private static int flush(FileChannel channel, ByteBuffer chunk) throws IOException {
+        ((Buffer) chunk).flip();
+        int length = chunk.remaining();
+
+        while (chunk.hasRemaining()) {
+            channel.write(chunk);
+        }
+
+        ((Buffer) chunk).clear();
+
+        return length;
+    }
+
+    private static long align(long length) {
+        return (length + 7) & ~7L;
+    }
+}
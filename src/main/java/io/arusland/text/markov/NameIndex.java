@@ -0,0 +1,183 @@
+package io.arusland.text.markov;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts how often every word of a {@link Vocabulary} is written in lower case and with capital letters
+ * and remembers how it was written in the middle of a sentence.
+ * <p>
+ * A word is a name when it was met capitalized in the middle of a sentence and is capitalized
+ * at least as often as not. The decision is made on request, so adding a text only updates
+ * counts of its own words and never revisits words loaded before.
+ *
+ * @since 2026-10-18
+ */
+public class NameIndex {
+    private int[] lowercaseCounts = new int[16];
+    private int[] capitalizedCounts = new int[16];
+    /**
+     * The first capitalized form met in the middle of a sentence by word id.
+     */
+    private String[] forms = new String[16];
+
+    public void addLowercase(int id) {
+        lowercaseCounts = ensureCapacity(lowercaseCounts, id);
+        lowercaseCounts[id]++;
+    }
+
+    public void addCapitalized(int id) {
+        capitalizedCounts = ensureCapacity(capitalizedCounts, id);
+        capitalizedCounts[id]++;
+    }
+
+    /**
+     * Returns true if the word was already met capitalized in the middle of a sentence.
+     */
+    public boolean hasForm(int id) {
+        return id < forms.length && forms[id] != null;
+    }
+
+    /**
+     * Remembers how the word was written in the middle of a sentence unless it is already known.
+     */
+    public void putForm(int id, String form) {
+        if (id >= forms.length) {
+            forms = Arrays.copyOf(forms, Math.max(id + 1, forms.length << 1));
+        }
+
+        if (forms[id] == null) {
+            forms[id] = form;
+        }
+    }
+
+    public int getLowercaseCount(int id) {
+        return id < lowercaseCounts.length ? lowercaseCounts[id] : 0;
+    }
+
+    public int getCapitalizedCount(int id) {
+        return id < capitalizedCounts.length ? capitalizedCounts[id] : 0;
+    }
+
+    /**
+     * Returns the name written as in the text or null if the word is not a name.
+     */
+    public String getName(int id) {
+        if (!hasForm(id) || getCapitalizedCount(id) < getLowercaseCount(id)) {
+            return null;
+        }
+
+        return forms[id];
+    }
+
+    public int getNameCount() {
+        int count = 0;
+
+        for (int id = 0; id < forms.length; id++) {
+            if (getName(id) != null) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns names keyed by lowercased words.
+     */
+    public Map<String, String> toNameMap(Vocabulary vocabulary) {
+        Map<String, String> names = new HashMap<>();
+
+        for (int id = 0; id < vocabulary.size(); id++) {
+            String name = getName(id);
+
+            if (name != null) {
+                names.put(vocabulary.getWord(id), name);
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns how many times every word was met, capitalized occurrences are counted
+     * under the name or the capitalized word.
+     */
+    public Map<String, Integer> toCountMap(Vocabulary vocabulary) {
+        Map<String, Integer> counts = new HashMap<>();
+
+        for (int id = 0; id < vocabulary.size(); id++) {
+            String word = vocabulary.getWord(id);
+
+            if (getLowercaseCount(id) > 0) {
+                counts.put(word, getLowercaseCount(id));
+            }
+
+            if (getCapitalizedCount(id) > 0) {
+                String form = hasForm(id) ? forms[id] : Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                counts.put(form, getCapitalizedCount(id));
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Adds counts and forms of the other index, the word ids of which are mapped by the array,
+     * words mapped to -1 are skipped.
+     */
+    public void merge(NameIndex other, int[] wordIds) {
+        for (int id = 0; id < wordIds.length; id++) {
+            if (wordIds[id] < 0) {
+                continue;
+            }
+
+            int lowercaseCount = other.getLowercaseCount(id);
+            int capitalizedCount = other.getCapitalizedCount(id);
+
+            if (lowercaseCount > 0) {
+                lowercaseCounts = ensureCapacity(lowercaseCounts, wordIds[id]);
+                lowercaseCounts[wordIds[id]] += lowercaseCount;
+            }
+
+            if (capitalizedCount > 0) {
+                capitalizedCounts = ensureCapacity(capitalizedCounts, wordIds[id]);
+                capitalizedCounts[wordIds[id]] += capitalizedCount;
+            }
+
+            if (other.hasForm(id)) {
+                putForm(wordIds[id], other.forms[id]);
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(lowercaseCounts, 0);
+        Arrays.fill(capitalizedCounts, 0);
+        Arrays.fill(forms, null);
+    }
+
+    /**
+     * Returns approximate heap size of the index in bytes including the forms.
+     */
+    public long sizeInBytes() {
+        long bytes = 4L * lowercaseCounts.length + 4L * capitalizedCounts.length + 4L * forms.length;
+
+        for (String form : forms) {
+            if (form != null) {
+                bytes += 40 + 2L * form.length();
+            }
+        }
+
+        return bytes;
+    }
+
+    private static int[] ensureCapacity(int[] array, int index) {
+        if (index >= array.length) {
+            return Arrays.copyOf(array, Math.max(index + 1, array.length << 1));
+        }
+
+        return array;
+    }
+}
@@ -0,0 +1,249 @@
+package io.arusland.text.markov;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Wordogram which keeps learning while generators sample from it.
+ * <p>
+ * Updates of the wordogram are serialized by a lock, readers never take it: they get the last
+ * published {@link ChainModel}, which is immutable, so sampling never blocks and never sees
+ * a half applied update. A new model is published when an update finds the previous one
+ * older than the publish interval, and by a background publisher for the updates after it.
+ * <p>
+ * Publishing holds the lock only to take the {@link ModelDelta changes} recorded since the previous model,
+ * the new model is built from the previous one and the changes while updates go on. Only after changes
+ * which renumber words or are too large to record, e.g. loading a corpus, the model is built anew
+ * from the wordogram holding the lock. The interval grows with the time the last model took to build,
+ * so publishing a large model takes a bounded share of a CPU.
+ * <p>
+ * Indexes which a model otherwise builds on the first call, its {@link SeedIndex} and {@link SentenceLengths},
+ * are built by the publisher before the model is published, so generators never wait for them.
+ * Sentence lengths of a model built from changes are solved starting from those of the previous model.
+ *
+ * @since 2026-10-18
+ */
+public class OnlineModel implements Closeable {
+    /**
+     * The interval is at least this many times the time the last model took to build.
+     */
+    private static final int BUILD_TIME_FACTOR = 10;
+    private final Wordogram wordogram;
+    private final long publishIntervalMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Serializes publishers, as every model is built from the previous one.
+     */
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private volatile ChainModel model;
+    /**
+     * Words of the published model as written in it, kept by the publisher for the next delta.
+     */
+    private String[] words;
+    private volatile long publishTime;
+    private volatile long publishDelayMillis;
+    private boolean changed;
+    private ScheduledExecutorService publisher;
+
+    /**
+     * Creates model with the given publish interval, 0 publishes after every update.
+     */
+    public OnlineModel(Wordogram wordogram, long publishIntervalMillis) {
+        if (publishIntervalMillis < 0) {
+            throw new IllegalArgumentException("Publish interval must not be negative: " + publishIntervalMillis);
+        }
+
+        this.wordogram = wordogram;
+        this.publishIntervalMillis = publishIntervalMillis;
+        this.publishDelayMillis = publishIntervalMillis;
+        long startTime = System.currentTimeMillis();
+        publish(rebuild(), null, startTime);
+    }
+
+    /**
+     * Returns the last published model without waiting for updates in progress.
+     */
+    public ChainModel getModel() {
+        return model;
+    }
+
+    /**
+     * Returns the interval publishing waits for now, it is grown for models which take long to build.
+     */
+    public long getPublishDelayMillis() {
+        return publishDelayMillis;
+    }
+
+    /**
+     * Changes the wordogram holding the lock, the change becomes visible to readers
+     * with the next published model.
+     */
+    public <T> T update(Task<T> task) throws IOException {
+        T result;
+        lock.lock();
+
+        try {
+            changed = true;
+            result = task.run(wordogram);
+        } finally {
+            lock.unlock();
+        }
+
+        if (System.currentTimeMillis() - publishTime >= publishDelayMillis) {
+            publishChanges();
+        }
+
+        return result;
+    }
+
+    /**
+     * Reads the wordogram holding the lock, so no update is in progress meanwhile.
+     */
+    public <T> T read(Task<T> task) throws IOException {
+        lock.lock();
+
+        try {
+            return task.run(wordogram);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Publishes model of the current wordogram at once.
+     */
+    public ChainModel publish() {
+        publishLock.lock();
+
+        try {
+            return publishLocked(true);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Starts background thread which publishes changes not published by updates themselves.
+     */
+    public synchronized void start() {
+        if (publisher != null || publishIntervalMillis == 0) {
+            return;
+        }
+
+        publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "model-publisher");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+
+        publisher.scheduleWithFixedDelay(() -> {
+            if (System.currentTimeMillis() - publishTime >= publishDelayMillis) {
+                publishChanges();
+            }
+        }, publishIntervalMillis, publishIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (publisher != null) {
+            publisher.shutdownNow();
+            publisher = null;
+        }
+    }
+
+    private void publishChanges() {
+        publishLock.lock();
+
+        try {
+            publishLocked(false);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Publishes the changes holding the publish lock, the wordogram lock is held only to take them.
+     */
+    private ChainModel publishLocked(boolean always) {
+        ModelDelta delta;
+        ChainModel rebuilt = null;
+        lock.lock();
+        long startTime = System.currentTimeMillis();
+
+        try {
+            if (!changed && !always) {
+                return model;
+            }
+
+            changed = false;
+            delta = wordogram.takeDelta();
+
+            if (delta == null) {
+                rebuilt = rebuild();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (rebuilt != null) {
+            return publish(rebuilt, null, startTime);
+        }
+
+        int previousSize = words.length;
+        words = Arrays.copyOf(words, delta.getWordCount());
+        StringTable table = delta.applyWords(words)
+                ? StringTable.of(words, words.length, true).place(wordogram.getStorage())
+                : model.getWords();
+
+        if (previousSize == words.length && table == model.getWords() && delta.size() == 0) {
+            publishTime = System.currentTimeMillis();
+
+            return model;
+        }
+
+        // words keep their ids in models built from changes
+        return publish(delta.applyTo(model, table, wordogram.getStorage()), model, startTime);
+    }
+
+    /**
+     * Builds the model from the whole wordogram, the lock is held or the model is being created.
+     */
+    private ChainModel rebuild() {
+        wordogram.takeDelta();
+        words = wordogram.getModelWords();
+
+        return wordogram.toModel(StringTable.of(words, words.length, true));
+    }
+
+    /**
+     * Builds indexes of the new model and publishes it.
+     *
+     * @param previous model whose words have the same ids in the new one or null
+     */
+    private ChainModel publish(ChainModel next, ChainModel previous, long startTime) {
+        next.getSeedIndex();
+        next.solveSentenceLengths(previous);
+        model = next;
+        publishTime = System.currentTimeMillis();
+
+        if (publishIntervalMillis > 0) {
+            publishDelayMillis = Math.max(publishIntervalMillis, BUILD_TIME_FACTOR * (publishTime - startTime));
+        }
+
+        return next;
+    }
+
+    /**
+     * Action on the wordogram made while holding the lock.
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T run(Wordogram wordogram) throws IOException;
+    }
+}
@@ -0,0 +1,59 @@
+package io.arusland.text.markov;
+
+/**
+ * Immutable limits of a {@link Wordogram#prune(PruneOptions)} pass, 0 means no limit.
+ *
+ * @since 2026-10-18
+ */
+public final class PruneOptions {
+    private final int minCount;
+    private final int maxVocabularySize;
+    private final int maxSuccessors;
+
+    public PruneOptions(int minCount, int maxVocabularySize, int maxSuccessors) {
+        if (minCount < 0 || maxVocabularySize < 0 || maxSuccessors < 0) {
+            throw new IllegalArgumentException("Prune limits must not be negative");
+        }
+
+        if (maxVocabularySize == 1) {
+            throw new IllegalArgumentException("Vocabulary must keep at least the end and unknown tokens");
+        }
+
+        this.minCount = minCount;
+        this.maxVocabularySize = maxVocabularySize;
+        this.maxSuccessors = maxSuccessors;
+    }
+
+    /**
+     * Returns count below which transitions are removed.
+     */
+    public int getMinCount() {
+        return minCount;
+    }
+
+    /**
+     * Returns count of the most frequent words kept, others are replaced with {@link Wordogram#TOKEN_UNKNOWN}.
+     */
+    public int getMaxVocabularySize() {
+        return maxVocabularySize;
+    }
+
+    /**
+     * Returns count of the most frequent next words kept for every state.
+     */
+    public int getMaxSuccessors() {
+        return maxSuccessors;
+    }
+
+    public PruneOptions withMinCount(int minCount) {
+        return new PruneOptions(minCount, maxVocabularySize, maxSuccessors);
+    }
+
+    public PruneOptions withMaxVocabularySize(int maxVocabularySize) {
+        return new PruneOptions(minCount, maxVocabularySize, maxSuccessors);
+    }
+
+    public PruneOptions withMaxSuccessors(int maxSuccessors) {
+        return new PruneOptions(minCount, maxVocabularySize, maxSuccessors);
+    }
+}
@@ -0,0 +1,265 @@
+package io.arusland.text.markov;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scores texts by how likely the model is to produce them, e.g. to find texts unlike the trained corpus.
+ * <p>
+ * Texts are split into words by {@link WordParser} rules and every word and end of sentence is predicted
+ * from the previous words of its sentence. Probabilities are smoothed by Witten-Bell interpolation:
+ * the longest known state is mixed with shorter ones down to word frequencies, which are add-one smoothed
+ * over the vocabulary and one more outcome for any unknown word, so no token has zero probability.
+ * <p>
+ * Words are looked up in a vocabulary of every thread, so scoring allocates a string only for a word
+ * met by the thread for the first time. The vocabulary is cleared when it outgrows a limit, so scoring
+ * an endless stream of texts keeps memory bounded. Texts scored in several threads are run by
+ * daemon threads of the scorer, which are reused by later calls and end when idle.
+ *
+ * @since 2026-10-18
+ */
+public final class Scorer {
+    /**
+     * Stands for a word of the parser vocabulary which was not looked up in the model yet.
+     */
+    private static final int UNRESOLVED = -2;
+    /**
+     * Words a thread vocabulary holds before it is cleared.
+     */
+    private static final int VOCABULARY_LIMIT = 1 << 16;
+    private final ChainModel model;
+    private final WordParser parser;
+    /**
+     * How many times every word followed a state of one word.
+     */
+    private final int[] wordCounts;
+    /**
+     * Denominator of add-one smoothed word frequencies.
+     */
+    private final double wordTotal;
+    private final SeedIndex seedIndex;
+    private final int vocabularyLimit;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+    private ExecutorService executor;
+
+    public Scorer(ChainModel model) {
+        this(model, new WordParser());
+    }
+
+    /**
+     * @param parser parser whose alphabet splits texts into words, it should be the one the model was trained with
+     */
+    public Scorer(ChainModel model, WordParser parser) {
+        this(model, parser, VOCABULARY_LIMIT);
+    }
+
+    Scorer(ChainModel model, WordParser parser, int vocabularyLimit) {
+        this.model = model;
+        this.parser = parser;
+        this.vocabularyLimit = vocabularyLimit;
+        this.seedIndex = model.getSeedIndex();
+        wordCounts = new int[model.size()];
+        long total = 0;
+
+        for (int id = 0; id < model.size(); id++) {
+            for (int index = 0; index < model.getSuccessorCount(id); index++) {
+                int weight = model.getSuccessorWeight(id, index);
+                wordCounts[model.getSuccessor(id, index)] += weight;
+                total += weight;
+            }
+        }
+
+        wordTotal = total + model.size() + 1;
+    }
+
+    public ChainModel getModel() {
+        return model;
+    }
+
+    public TextScore score(CharSequence text) {
+        return workers.get().score(text);
+    }
+
+    /**
+     * Scores the texts using several threads, scores are returned in the order of the texts.
+     */
+    public List<TextScore> score(List<? extends CharSequence> texts, int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threadCount);
+        }
+
+        TextScore[] scores = new TextScore[texts.size()];
+
+        if (threadCount == 1 || texts.size() < threadCount) {
+            workers.get().score(texts, 0, texts.size(), scores);
+
+            return Arrays.asList(scores);
+        }
+
+        ExecutorService executor = getExecutor();
+        List<Future<?>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                int start = (int) ((long) texts.size() * i / threadCount);
+                int end = (int) ((long) texts.size() * (i + 1) / threadCount);
+
+                results.add(executor.submit(() -> workers.get().score(texts, start, end, scores)));
+            }
+
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Scoring was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // parts left by a failed call do not hold the threads
+            results.forEach(result -> result.cancel(true));
+        }
+
+        return Arrays.asList(scores);
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "scorer");
+                thread.setDaemon(true);
+
+                return thread;
+            });
+        }
+
+        return executor;
+    }
+
+    /**
+     * Returns smoothed probability of the word after the previous words, the most recent first,
+     * the word is -1 if it is unknown to the model. Probabilities of all words and the unknown one sum to 1.
+     */
+    public double getProbability(int[] history, int historySize, int word) {
+        return getProbability(history, historySize, word, new int[model.getOrder()]);
+    }
+
+    private double getProbability(int[] history, int historySize, int word, int[] states) {
+        int depth = 0;
+
+        if (historySize > 0) {
+            int state = history[0];
+            states[depth++] = state;
+
+            for (int i = 1; i < Math.min(historySize, model.getOrder()); i++) {
+                state = model.getContext(state, history[i]);
+
+                if (state < 0) {
+                    break;
+                }
+
+                states[depth++] = state;
+            }
+        }
+
+        double probability = (word >= 0 ? wordCounts[word] + 1 : 1) / wordTotal;
+
+        // from the shortest state to the longest one
+        for (int i = 0; i < depth; i++) {
+            int total = model.getWeight(states[i]);
+
+            if (total > 0) {
+                int distinct = model.getSuccessorCount(states[i]);
+                int count = word >= 0 ? model.getTransitionWeight(states[i], word) : 0;
+                probability = (count + distinct * probability) / (total + distinct);
+            }
+        }
+
+        return probability;
+    }
+
+    /**
+     * Buffers of a scoring thread.
+     */
+    private final class Worker {
+        final Vocabulary vocabulary = new Vocabulary();
+        /**
+         * Model id of every word of the vocabulary, -1 for unknown words.
+         */
+        int[] modelIds = {Wordogram.END_ID};
+        int[] tokens = new int[64];
+        int tokenCount;
+        final int[] history = new int[model.getOrder()];
+        final int[] states = new int[model.getOrder()];
+
+        Worker() {
+            // the end of sentence is the first word of every parser vocabulary
+            vocabulary.intern(Wordogram.TOKEN_END);
+        }
+
+        void score(List<? extends CharSequence> texts, int start, int end, TextScore[] scores) {
+            for (int i = start; i < end; i++) {
+                scores[i] = score(texts.get(i));
+            }
+        }
+
+        TextScore score(CharSequence text) {
+            if (vocabulary.size() > vocabularyLimit) {
+                vocabulary.clear();
+                vocabulary.intern(Wordogram.TOKEN_END);
+                modelIds = new int[]{Wordogram.END_ID};
+            }
+
+            tokenCount = 0;
+            parser.tokenize(text, vocabulary, this::addToken);
+
+            double logLikelihood = 0;
+            int unknownCount = 0;
+            history[0] = Wordogram.END_ID;
+            int historySize = 1;
+
+            for (int i = 0; i < tokenCount; i++) {
+                int word = getModelId(tokens[i]);
+                logLikelihood += Math.log(getProbability(history, historySize, word, states));
+
+                if (word < 0) {
+                    // no state contains an unknown word, the next word is predicted by its frequency only
+                    unknownCount++;
+                    historySize = 0;
+                } else {
+                    historySize = Wordogram.pushHistory(history, historySize, history.length, word);
+                }
+            }
+
+            return new TextScore(tokenCount, unknownCount, logLikelihood);
+        }
+
+        private void addToken(int id) {
+            if (tokenCount == tokens.length) {
+                tokens = Arrays.copyOf(tokens, tokenCount << 1);
+            }
+
+            tokens[tokenCount++] = id;
+        }
+
+        private int getModelId(int id) {
+            if (id >= modelIds.length) {
+                int length = modelIds.length;
+                modelIds = Arrays.copyOf(modelIds, Math.max(length << 1, id + 1));
+                Arrays.fill(modelIds, length, modelIds.length, UNRESOLVED);
+            }
+
+            if (modelIds[id] == UNRESOLVED) {
+                // names are kept in the model as written, so words are found ignoring case
+                modelIds[id] = seedIndex.find(vocabulary.getWord(id));
+            }
+
+            return modelIds[id];
+        }
+    }
+}
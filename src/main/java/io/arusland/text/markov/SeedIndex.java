@@ -0,0 +1,323 @@
+package io.arusland.text.markov;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Case insensitive index of the words of a {@link ChainModel} used to resolve first words of texts.
+ * <p>
+ * Word ids are sorted by their case folded forms, so all forms of a word are neighbours and all words
+ * starting with a prefix make one range found by binary search. A hash table over the case folded forms
+ * points to the first form of every word, so a seed is resolved by one probe whatever case it is
+ * written in. Lookups fold chars on the fly and allocate nothing.
+ *
+ * @since 2026-10-18
+ */
+public final class SeedIndex {
+    /**
+     * Marks a prefix seed at the end of a seed, e.g. "пут*" or "пут…".
+     */
+    public static final char PREFIX_MARK = '*';
+    public static final char PREFIX_ELLIPSIS = '…';
+    private static final int EMPTY = -1;
+    private final ChainModel model;
+    private final StringTable words;
+    /**
+     * Word ids ordered by case folded form.
+     */
+    private final int[] ids;
+    /**
+     * Positions in {@link #ids} of the first form of every word by hash of the case folded form.
+     */
+    private final int[] table;
+
+    SeedIndex(ChainModel model) {
+        this.model = model;
+        this.words = model.getWords();
+
+        // the end of sentence is not a seed
+        ids = WordSort.sort(1, words.size() - 1, this::foldedPrefix, (id1, id2) -> {
+            int cmp = compareWords(id1, id2);
+
+            return cmp != 0 ? cmp : Integer.compare(id1, id2);
+        });
+
+        int capacity = 16;
+
+        while (capacity < ids.length * 2) {
+            capacity <<= 1;
+        }
+
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        int mask = capacity - 1;
+
+        for (int pos = 0; pos < ids.length; pos++) {
+            if (pos > 0 && compareWords(ids[pos], ids[pos - 1]) == 0) {
+                continue;
+            }
+
+            int slot = StringTable.mix(foldedHash(ids[pos])) & mask;
+
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+
+            table[slot] = pos;
+        }
+    }
+
+    /**
+     * Returns count of indexed words, all words except the end of sentence.
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns id of the word at the position of the case folded order.
+     */
+    public int getId(int pos) {
+        return ids[pos];
+    }
+
+    /**
+     * Returns id of the seed: a word, or a random word starting with the prefix for a seed
+     * ending with {@link #PREFIX_MARK} or {@link #PREFIX_ELLIPSIS}, or -1 if no word matches.
+     *
+     * @param weighted choose among words of the prefix according to their frequency,
+     *                 otherwise all words of the prefix are equiprobable
+     */
+    public int find(CharSequence seed, boolean weighted, Random random) {
+        int length = seed.length();
+
+        if (length > 1 && (seed.charAt(length - 1) == PREFIX_MARK || seed.charAt(length - 1) == PREFIX_ELLIPSIS)) {
+            return findByPrefix(seed, length - 1, weighted, random);
+        }
+
+        return find(seed);
+    }
+
+    /**
+     * Returns id of the word ignoring case or -1 if no word matches.
+     * <p>
+     * When the model has several forms of the word the form written exactly as the seed is preferred,
+     * otherwise the most frequent one.
+     */
+    public int find(CharSequence word) {
+        int start = indexOf(word);
+
+        if (start < 0) {
+            return EMPTY;
+        }
+
+        int best = ids[start];
+        int end = groupEnd(start);
+
+        for (int pos = start; pos < end; pos++) {
+            int id = ids[pos];
+
+            if (words.contentEquals(id, word)) {
+                return id;
+            }
+
+            if (model.getWeight(id) > model.getWeight(best)) {
+                best = id;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Returns position of the first form of the word ignoring case or -1 if no word matches.
+     */
+    public int indexOf(CharSequence word) {
+        int length = word.length();
+        int mask = table.length - 1;
+        int slot = StringTable.mix(foldedHash(word, length)) & mask;
+
+        while (true) {
+            int pos = table[slot];
+
+            if (pos == EMPTY || compare(ids[pos], word, length) == 0) {
+                return pos;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns position after the last form of the word at the position.
+     */
+    public int groupEnd(int pos) {
+        int id = ids[pos];
+        int end = pos + 1;
+
+        while (end < ids.length && compareWords(ids[end], id) == 0) {
+            end++;
+        }
+
+        return end;
+    }
+
+    /**
+     * Returns position of the first word starting with the prefix ignoring case.
+     */
+    public int prefixStart(CharSequence prefix, int length) {
+        int low = 0;
+        int high = ids.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (compare(ids[mid], prefix, length) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns position after the last word starting with the prefix ignoring case.
+     */
+    public int prefixEnd(CharSequence prefix, int length) {
+        int low = prefixStart(prefix, length);
+        int high = ids.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (startsWith(ids[mid], prefix, length)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    private int findByPrefix(CharSequence prefix, int length, boolean weighted, Random random) {
+        int start = prefixStart(prefix, length);
+        int end = prefixEnd(prefix, length);
+
+        if (start == end) {
+            return EMPTY;
+        }
+
+        if (!weighted) {
+            return ids[start + random.nextInt(end - start)];
+        }
+
+        long total = 0;
+
+        for (int pos = start; pos < end; pos++) {
+            total += model.getWeight(ids[pos]);
+        }
+
+        if (total == 0) {
+            return ids[start + random.nextInt(end - start)];
+        }
+
+        long index = (long) (random.nextDouble() * total);
+
+        for (int pos = start; pos < end; pos++) {
+            index -= model.getWeight(ids[pos]);
+
+            if (index < 0) {
+                return ids[pos];
+            }
+        }
+
+        return ids[end - 1];
+    }
+
+    private boolean startsWith(int id, CharSequence prefix, int length) {
+        if (words.length(id) < length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (fold(words.charAt(id, i)) != fold(prefix.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares case folded forms of the word and the first length chars of the sequence.
+     */
+    private int compare(int id, CharSequence str, int length) {
+        int wordLength = words.length(id);
+        int common = Math.min(wordLength, length);
+
+        for (int i = 0; i < common; i++) {
+            int cmp = Character.compare(fold(words.charAt(id, i)), fold(str.charAt(i)));
+
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        return Integer.compare(wordLength, length);
+    }
+
+    /**
+     * Compares case folded forms of two words.
+     */
+    private int compareWords(int id1, int id2) {
+        int length1 = words.length(id1);
+        int length2 = words.length(id2);
+        int common = Math.min(length1, length2);
+
+        for (int i = 0; i < common; i++) {
+            int cmp = Character.compare(fold(words.charAt(id1, i)), fold(words.charAt(id2, i)));
+
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        return Integer.compare(length1, length2);
+    }
+
+    private int foldedPrefix(int id) {
+        int length = words.length(id);
+
+        char first = length > 0 ? fold(words.charAt(id, 0)) : 0;
+        char second = length > 1 ? fold(words.charAt(id, 1)) : 0;
+
+        return WordSort.prefix(first, second);
+    }
+
+    private int foldedHash(int id) {
+        int hash = 0;
+
+        for (int i = 0; i < words.length(id); i++) {
+            hash = 31 * hash + fold(words.charAt(id, i));
+        }
+
+        return hash;
+    }
+
+    private static int foldedHash(CharSequence str, int length) {
+        int hash = 0;
+
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + fold(str.charAt(i));
+        }
+
+        return hash;
+    }
+
+    private static char fold(char ch) {
+        return Character.toLowerCase(Character.toUpperCase(ch));
+    }
+}
@@ -0,0 +1,157 @@
+package io.arusland.text.markov;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter of sentences already loaded, so repeated sentences, e.g. boilerplate footers and reposted
+ * articles, are skipped by {@link WordParser} before they reach a wordogram.
+ * <p>
+ * A sentence is identified by its lowercased words, punctuation and case do not matter. Sentences shorter
+ * than the min count of words are never skipped, as short sentences are repeated in any text.
+ * The filter takes the given memory whatever count of sentences it has seen, as it fills up a new sentence
+ * is more likely to be taken for a seen one, see {@link #getFalsePositiveRate()}.
+ * <p>
+ * The filter is thread safe, a sentence added by several threads at once is new for one of them only.
+ * Which copy of a repeated sentence is kept depends on the order of adds, so {@link CorpusLoader}
+ * loads files one by one when its parser has a filter.
+ *
+ * @since 2026-10-18
+ */
+public final class SentenceFilter {
+    public static final int DEFAULT_MIN_WORDS = 5;
+    /**
+     * Bits set for every sentence, 1% of sentences are taken for seen ones at 10 bits per sentence.
+     */
+    private static final int HASH_COUNT = 7;
+    private final long[] bits;
+    private final long bitCount;
+    private final int minWords;
+    private final AtomicLong setBits = new AtomicLong();
+    private final AtomicLong sentences = new AtomicLong();
+    private final AtomicLong skippedSentences = new AtomicLong();
+    private final AtomicLong skippedBytes = new AtomicLong();
+
+    public SentenceFilter(long memoryBytes) {
+        this(memoryBytes, DEFAULT_MIN_WORDS);
+    }
+
+    public SentenceFilter(long memoryBytes, int minWords) {
+        if (memoryBytes < 8 || memoryBytes / 8 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Memory must be in range 8.." + Integer.MAX_VALUE * 8L + ": "
+                    + memoryBytes);
+        }
+
+        if (minWords < 1) {
+            throw new IllegalArgumentException("Min count of words must be positive: " + minWords);
+        }
+
+        bits = new long[(int) (memoryBytes / 8)];
+        bitCount = bits.length * 64L;
+        this.minWords = minWords;
+    }
+
+    /**
+     * Returns true if the sentence was not seen before or is too short to be checked,
+     * otherwise counts the sentence as skipped.
+     *
+     * @param hash  hash of the words of the sentence
+     * @param bytes size of the sentence in the text
+     */
+    boolean accept(long hash, int wordCount, long bytes) {
+        if (wordCount < minWords) {
+            return true;
+        }
+
+        sentences.incrementAndGet();
+
+        if (add(hash)) {
+            return true;
+        }
+
+        skippedSentences.incrementAndGet();
+        skippedBytes.addAndGet(bytes);
+
+        return false;
+    }
+
+    /**
+     * Adds the hash and returns true if it is new or false if it was probably added before.
+     */
+    public synchronized boolean add(long hash) {
+        // double hashing: bit indexes are h1 + i * h2 of two hashes mixed from the given one
+        long h1 = mix(hash);
+        long h2 = mix(h1) | 1;
+        boolean added = false;
+
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            added |= set((int) (bit >>> 6), 1L << bit);
+        }
+
+        return added;
+    }
+
+    public long getMemoryBytes() {
+        return bitCount / 8;
+    }
+
+    public int getMinWords() {
+        return minWords;
+    }
+
+    /**
+     * Returns count of sentences checked by the filter, which are all sentences not shorter than min count of words.
+     */
+    public long getSentenceCount() {
+        return sentences.get();
+    }
+
+    public long getSkippedSentences() {
+        return skippedSentences.get();
+    }
+
+    /**
+     * Returns size of skipped sentences in the texts, in UTF-8 bytes.
+     */
+    public long getSkippedBytes() {
+        return skippedBytes.get();
+    }
+
+    /**
+     * Returns share of set bits of the filter.
+     */
+    public double getFill() {
+        return setBits.get() / (double) bitCount;
+    }
+
+    /**
+     * Returns estimated probability to take a new sentence for a seen one.
+     */
+    public double getFalsePositiveRate() {
+        return Math.pow(getFill(), HASH_COUNT);
+    }
+
+    private boolean set(int index, long mask) {
+        if ((bits[index] & mask) != 0) {
+            return false;
+        }
+
+        bits[index] |= mask;
+        setBits.incrementAndGet();
+
+        return true;
+    }
+
+    /**
+     * Finalizer of MurmurHash3, spreads every bit of the hash over all bits.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
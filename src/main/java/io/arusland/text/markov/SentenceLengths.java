@@ -0,0 +1,123 @@
+package io.arusland.text.markov;
+
+import java.util.Arrays;
+
+/**
+ * Expected count of chars left till the end of the sentence after every word of a {@link ChainModel},
+ * used to steer generation to a sentence ending within a length window.
+ * <p>
+ * Expectations are solved over the states of one word with next words drawn according to their frequency,
+ * so for higher order chains and equiprobable next words they are estimates. Words are counted together
+ * with the space before them and the sentence with its period.
+ * <p>
+ * Iterations start from the expectations of a previous model of the same words, if given, so a model
+ * which differs a little from the previous one is solved in a few passes.
+ *
+ * @since 2026-10-18
+ */
+public final class SentenceLengths {
+    private static final int MAX_ITERATIONS = 256;
+    private static final float PRECISION = 0.5f;
+    /**
+     * Expectations of words whose sentences hardly ever end stop growing here.
+     */
+    private static final float LIMIT = 1e6f;
+    private final ChainModel model;
+    /**
+     * Expected chars after the word till the end of its sentence.
+     */
+    private final float[] expected;
+    /**
+     * The most chars a next word of the state and its sentence are expected to take.
+     */
+    private final float[] reach;
+
+    SentenceLengths(ChainModel model) {
+        this(model, null);
+    }
+
+    /**
+     * @param previous expectations of a model whose words have the same ids or null
+     */
+    SentenceLengths(ChainModel model, SentenceLengths previous) {
+        this.model = model;
+
+        int size = model.size();
+        expected = previous != null ? Arrays.copyOf(previous.expected, size) : new float[size];
+
+        // Gauss-Seidel iterations: updated expectations are used at once in the same pass
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            float delta = 0;
+
+            for (int id = 0; id < size; id++) {
+                float value = Math.min(solve(id), LIMIT);
+                delta = Math.max(delta, Math.abs(value - expected[id]));
+                expected[id] = value;
+            }
+
+            if (delta < PRECISION) {
+                break;
+            }
+        }
+
+        reach = new float[model.getStateCount()];
+
+        for (int state = 0; state < reach.length; state++) {
+            float max = 0;
+
+            for (int i = 0; i < model.getSuccessorCount(state); i++) {
+                max = Math.max(max, getCost(model.getSuccessor(state, i)));
+            }
+
+            reach[state] = max;
+        }
+    }
+
+    /**
+     * Returns expected count of chars after the word till the end of its sentence including the period,
+     * for the end of sentence it is the expected length of the next sentence.
+     */
+    public float getExpectedLength(int id) {
+        return expected[id];
+    }
+
+    /**
+     * Returns expected count of chars taken by the next word and the rest of its sentence
+     * or by the period and the next sentence.
+     */
+    public float getCost(int nextId) {
+        if (nextId == Wordogram.END_ID) {
+            // the period and the next sentence, whose expectation counts the space before its first word
+            return 1 + expected[Wordogram.END_ID];
+        }
+
+        return 1 + model.getWords().length(nextId) + expected[nextId];
+    }
+
+    /**
+     * Returns the highest {@link #getCost(int) cost} of the next words of the state,
+     * no next word of the state is expected to go beyond it.
+     */
+    public float getReach(int state) {
+        return reach[state];
+    }
+
+    private float solve(int id) {
+        int count = model.getSuccessorCount(id);
+
+        if (count == 0) {
+            // the chain ends after the word, the text is finished by a period
+            return 1;
+        }
+
+        double sum = 0;
+
+        for (int i = 0; i < count; i++) {
+            int next = model.getSuccessor(id, i);
+            float cost = next == Wordogram.END_ID ? 1 : 1 + model.getWords().length(next) + expected[next];
+            sum += (double) model.getSuccessorWeight(id, i) * cost;
+        }
+
+        return (float) (sum / model.getWeight(id));
+    }
+}
@@ -0,0 +1,222 @@
+package io.arusland.text.markov;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Words of a {@link ChainModel} ranked by frequency and next words of every word sorted by count,
+ * so a page of statistics is read without sorting.
+ * <p>
+ * A word is counted every time it follows a word or the end of sentence, which is every time
+ * it was met in the trained texts. Equal counts are ordered by words. The end of sentence is not ranked.
+ * <p>
+ * The index is built together with the model and kept in buffers like the model is, so it is stored
+ * in a {@link ModelSnapshot} and placed off heap with the model. It takes an int per next word
+ * of every word and three ints per word.
+ *
+ * @since 2026-10-18
+ */
+public final class StatsIndex {
+    private final IntBuffer offsets;
+    private final IntBuffer counts;
+    /**
+     * Words from the most frequent one.
+     */
+    private final IntBuffer ranking;
+    private final IntBuffer ranks;
+    /**
+     * Indexes of next words within successor rows of the words, every row from the most frequent next word.
+     */
+    private final IntBuffer successorOrder;
+
+    StatsIndex(IntBuffer offsets, IntBuffer counts, IntBuffer ranking, IntBuffer ranks, IntBuffer successorOrder) {
+        this.offsets = offsets;
+        this.counts = counts;
+        this.ranking = ranking;
+        this.ranks = ranks;
+        this.successorOrder = successorOrder;
+    }
+
+    /**
+     * Builds index of the model buffers and places it in the storage.
+     */
+    static StatsIndex build(StringTable words, IntBuffer offsets, IntBuffer successors,
+                            IntBuffer cumulativeWeights, Storage storage) {
+        int size = words.size();
+        int[] alphabeticalRanks = getAlphabeticalRanks(words);
+        int[] byAlphabet = new int[size];
+
+        for (int id = 0; id < size; id++) {
+            byAlphabet[alphabeticalRanks[id]] = id;
+        }
+
+        int[] counts = new int[size];
+        int wordTransitions = offsets.get(size);
+
+        for (int id = 0; id < size; id++) {
+            int previous = 0;
+
+            for (int pos = offsets.get(id); pos < offsets.get(id + 1); pos++) {
+                counts[successors.get(pos)] += cumulativeWeights.get(pos) - previous;
+                previous = cumulativeWeights.get(pos);
+            }
+        }
+
+        long[] keys = new long[Math.max(size - 1, 0)];
+
+        for (int id = 1; id < size; id++) {
+            keys[id - 1] = sortKey(counts[id], alphabeticalRanks[id]);
+        }
+
+        Arrays.sort(keys);
+        int[] ranking = new int[keys.length];
+        int[] ranks = new int[size];
+
+        ranks[Wordogram.END_ID] = -1;
+
+        for (int rank = 0; rank < keys.length; rank++) {
+            int id = byAlphabet[(int) keys[rank]];
+            ranking[rank] = id;
+            ranks[id] = rank;
+        }
+
+        int[] successorOrder = new int[wordTransitions];
+        long[] row = new long[0];
+
+        for (int id = 0; id < size; id++) {
+            int start = offsets.get(id);
+            int count = offsets.get(id + 1) - start;
+
+            if (row.length < count) {
+                row = new long[Math.max(count, row.length << 1)];
+            }
+
+            int previous = 0;
+
+            for (int index = 0; index < count; index++) {
+                int weight = cumulativeWeights.get(start + index);
+                row[index] = sortKey(weight - previous, alphabeticalRanks[successors.get(start + index)]);
+                previous = weight;
+            }
+
+            Arrays.sort(row, 0, count);
+
+            for (int pos = 0; pos < count; pos++) {
+                // rows are sorted by word id, so the index of the next word is found by halves
+                successorOrder[start + pos] = search(successors, start, start + count,
+                        byAlphabet[(int) row[pos]]) - start;
+            }
+        }
+
+        return new StatsIndex(offsets, storage.place(IntBuffer.wrap(counts)), storage.place(IntBuffer.wrap(ranking)),
+                storage.place(IntBuffer.wrap(ranks)), storage.place(IntBuffer.wrap(successorOrder)));
+    }
+
+    /**
+     * Returns count of ranked words, which are all words of the model but the end of sentence.
+     */
+    public int size() {
+        return ranking.limit();
+    }
+
+    /**
+     * Returns how many times the word was met.
+     */
+    public int getCount(int id) {
+        return counts.get(id);
+    }
+
+    /**
+     * Returns position of the word in the ranking from 0 for the most frequent word
+     * or -1 for the end of sentence.
+     */
+    public int getRank(int id) {
+        return ranks.get(id);
+    }
+
+    /**
+     * Returns id of the word at the position of the ranking.
+     */
+    public int getWord(int rank) {
+        return ranking.get(rank);
+    }
+
+    /**
+     * Returns index within the successor row of the word of its next word at the position
+     * from 0 for the most frequent next word, see {@link ChainModel#getSuccessor(int, int)}.
+     */
+    public int getSuccessorIndex(int id, int pos) {
+        int start = offsets.get(id);
+        int count = offsets.get(id + 1) - start;
+
+        if (pos < 0 || pos >= count) {
+            throw new IndexOutOfBoundsException("Position " + pos + " of " + count);
+        }
+
+        return successorOrder.get(start + pos);
+    }
+
+    /**
+     * Returns size of the buffers in bytes.
+     */
+    public long sizeInBytes() {
+        return 4L * counts.limit() + 4L * ranking.limit() + 4L * ranks.limit() + 4L * successorOrder.limit();
+    }
+
+    IntBuffer getCounts() {
+        return counts.duplicate();
+    }
+
+    IntBuffer getRanking() {
+        return ranking.duplicate();
+    }
+
+    IntBuffer getRanks() {
+        return ranks.duplicate();
+    }
+
+    IntBuffer getSuccessorOrder() {
+        return successorOrder.duplicate();
+    }
+
+    /**
+     * Returns key sorting higher counts first and equal counts by the alphabetical rank kept in the low half.
+     */
+    private static long sortKey(int count, int alphabeticalRank) {
+        return (long) (Integer.MAX_VALUE - count) << 32 | alphabeticalRank;
+    }
+
+    /**
+     * Returns position of the word in the sorted range of the buffer.
+     */
+    private static int search(IntBuffer buffer, int from, int to, int word) {
+        int low = from;
+        int high = to - 1;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (buffer.get(mid) < word) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns position of every word among the words sorted as strings are.
+     */
+    private static int[] getAlphabeticalRanks(StringTable words) {
+        int[] ids = WordSort.sort(0, words.size() - 1, id -> WordSort.prefix(words, id), words::compare);
+        int[] ranks = new int[ids.length];
+
+        for (int rank = 0; rank < ids.length; rank++) {
+            ranks[ids[rank]] = rank;
+        }
+
+        return ranks;
+    }
+}
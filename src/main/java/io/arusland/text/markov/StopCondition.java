@@ -0,0 +1,58 @@
+package io.arusland.text.markov;
+
+/**
+ * Decides when a {@link ChainWalk} ends.
+ *
+ * @since 2026-10-18
+ */
+@FunctionalInterface
+public interface StopCondition {
+    /**
+     * Returns true if the walk must end before the next word.
+     */
+    boolean isReached(ChainWalk walk, int nextId);
+
+    default StopCondition or(StopCondition other) {
+        return (walk, nextId) -> isReached(walk, nextId) || other.isReached(walk, nextId);
+    }
+
+    /**
+     * Walks till a word without successors.
+     */
+    static StopCondition never() {
+        return (walk, nextId) -> false;
+    }
+
+    /**
+     * Stops when the words joined by spaces would be longer than the count of chars,
+     * {@link Wordogram#TOKEN_END} is joined without a space.
+     */
+    static StopCondition maxChars(int count) {
+        return (walk, nextId) -> {
+            int separator = walk.getWordCount() > 0 && nextId != Wordogram.END_ID ? 1 : 0;
+
+            return walk.getCharCount() + separator + walk.getModel().getWords().length(nextId) > count;
+        };
+    }
+
+    /**
+     * Stops after the count of words not counting {@link Wordogram#TOKEN_END}.
+     */
+    static StopCondition maxWords(int count) {
+        return (walk, nextId) -> nextId != Wordogram.END_ID && walk.getWordCount() >= count;
+    }
+
+    /**
+     * Stops after {@link Wordogram#TOKEN_END} of the count of sentences.
+     */
+    static StopCondition maxSentences(int count) {
+        return (walk, nextId) -> walk.getSentenceCount() >= count;
+    }
+
+    /**
+     * Stops before the first {@link Wordogram#TOKEN_END}, so the walk is one sentence without the end.
+     */
+    static StopCondition endToken() {
+        return (walk, nextId) -> nextId == Wordogram.END_ID;
+    }
+}
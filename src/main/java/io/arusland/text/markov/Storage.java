@@ -0,0 +1,122 @@
+package io.arusland.text.markov;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Memory the tables of wordograms and models are allocated in.
+ * <p>
+ * Off heap tables are direct buffers, so a model takes a few objects of the Java heap whatever its size
+ * and garbage collections do not copy or scan it. Direct memory is limited by
+ * <code>-XX:MaxDirectMemorySize</code>, which is the max heap size by default.
+ * <p>
+ * An off heap table is a single direct buffer of at most 2 GB, so it holds at most 2^28 longs, 2^29 ints
+ * or 2^30 chars, an eighth, a quarter and a half of the <code>Integer.MAX_VALUE</code> elements a heap table holds.
+ * Larger models have to stay on the heap or be split over shards.
+ * <p>
+ * The default storage is chosen at startup by the system property <code>markov.storage</code>:
+ * <code>heap</code> (default) or <code>offheap</code>.
+ *
+ * @since 2026-10-18
+ */
+public enum Storage {
+    HEAP,
+    OFF_HEAP;
+
+    public static final String PROPERTY = "markov.storage";
+    private static final Storage DEFAULT = parse(System.getProperty(PROPERTY, "heap"));
+
+    public static Storage getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Parses <code>heap</code> or <code>offheap</code>.
+     */
+    public static Storage parse(String value) {
+        switch (value.trim().toLowerCase()) {
+            case "heap":
+                return HEAP;
+            case "offheap":
+            case "off-heap":
+            case "off_heap":
+                return OFF_HEAP;
+            default:
+                throw new IllegalArgumentException("Unknown storage: " + value);
+        }
+    }
+
+    public LongBuffer allocateLongs(int count) {
+        return this == HEAP ? LongBuffer.allocate(count) : allocateDirect(count * 8L).asLongBuffer();
+    }
+
+    public IntBuffer allocateInts(int count) {
+        return this == HEAP ? IntBuffer.allocate(count) : allocateDirect(count * 4L).asIntBuffer();
+    }
+
+    public CharBuffer allocateChars(int count) {
+        return this == HEAP ? CharBuffer.allocate(count) : allocateDirect(count * 2L).asCharBuffer();
+    }
+
+    /**
+     * Returns the buffer if it is kept in this storage or its copy otherwise.
+     */
+    public IntBuffer place(IntBuffer buffer) {
+        if (isPlaced(buffer.isDirect())) {
+            return buffer;
+        }
+
+        IntBuffer placed = allocateInts(buffer.limit());
+
+        for (int i = 0; i < buffer.limit(); i++) {
+            placed.put(i, buffer.get(i));
+        }
+
+        return placed;
+    }
+
+    public LongBuffer place(LongBuffer buffer) {
+        if (isPlaced(buffer.isDirect())) {
+            return buffer;
+        }
+
+        LongBuffer placed = allocateLongs(buffer.limit());
+
+        for (int i = 0; i < buffer.limit(); i++) {
+            placed.put(i, buffer.get(i));
+        }
+
+        return placed;
+    }
+
+    public CharBuffer place(CharBuffer buffer) {
+        if (isPlaced(buffer.isDirect())) {
+            return buffer;
+        }
+
+        CharBuffer placed = allocateChars(buffer.limit());
+
+        for (int i = 0; i < buffer.limit(); i++) {
+            placed.put(i, buffer.get(i));
+        }
+
+        return placed;
+    }
+
+    private boolean isPlaced(boolean direct) {
+        return direct == (this == OFF_HEAP);
+    }
+
+    private static ByteBuffer allocateDirect(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off heap buffer of " + bytes + " bytes exceeds the 2 GB limit"
+                    + " of a direct buffer (2^28 longs, 2^29 ints or 2^30 chars per table),"
+                    + " use heap storage or more shards");
+        }
+
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+}
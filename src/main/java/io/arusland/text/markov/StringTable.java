@@ -0,0 +1,214 @@
+package io.arusland.text.markov;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable list of strings packed into one char buffer with an optional hash index.
+ * <p>
+ * The buffers can be either heap arrays or views of a memory mapped snapshot,
+ * lookups work the same way and do not materialize strings.
+ *
+ * @since 2026-10-18
+ */
+public final class StringTable {
+    private static final int EMPTY = -1;
+    private final CharBuffer chars;
+    private final IntBuffer offsets;
+    private final IntBuffer index;
+
+    StringTable(CharBuffer chars, IntBuffer offsets, IntBuffer index) {
+        this.chars = chars;
+        this.offsets = offsets;
+        this.index = index;
+    }
+
+    /**
+     * Packs the strings, the table can be searched by {@link #indexOf(CharSequence)} only when indexed.
+     */
+    public static StringTable of(String[] strings, int size, boolean indexed) {
+        int length = 0;
+
+        for (int i = 0; i < size; i++) {
+            length += strings[i].length();
+        }
+
+        char[] chars = new char[length];
+        int[] offsets = new int[size + 1];
+
+        for (int i = 0; i < size; i++) {
+            String str = strings[i];
+            str.getChars(0, str.length(), chars, offsets[i]);
+            offsets[i + 1] = offsets[i] + str.length();
+        }
+
+        int[] table = new int[indexed ? tableSizeFor(size) : 0];
+        Arrays.fill(table, EMPTY);
+
+        if (indexed) {
+            int mask = table.length - 1;
+
+            for (int i = 0; i < size; i++) {
+                int pos = mix(strings[i].hashCode()) & mask;
+
+                while (table[pos] != EMPTY) {
+                    pos = (pos + 1) & mask;
+                }
+
+                table[pos] = i;
+            }
+        }
+
+        return new StringTable(CharBuffer.wrap(chars), IntBuffer.wrap(offsets), IntBuffer.wrap(table));
+    }
+
+    /**
+     * Returns table with the buffers of this one placed in the storage.
+     */
+    StringTable place(Storage storage) {
+        return new StringTable(storage.place(chars), storage.place(offsets), storage.place(index));
+    }
+
+    public int size() {
+        return offsets.limit() - 1;
+    }
+
+    public String get(int i) {
+        int start = offsets.get(i);
+        int end = offsets.get(i + 1);
+        char[] result = new char[end - start];
+
+        for (int pos = start; pos < end; pos++) {
+            result[pos - start] = chars.get(pos);
+        }
+
+        return new String(result);
+    }
+
+    /**
+     * Returns size of the buffers in bytes.
+     */
+    public long sizeInBytes() {
+        return 2L * chars.limit() + 4L * offsets.limit() + 4L * index.limit();
+    }
+
+    public int length(int i) {
+        return offsets.get(i + 1) - offsets.get(i);
+    }
+
+    public char charAt(int i, int pos) {
+        return chars.get(offsets.get(i) + pos);
+    }
+
+    public void appendTo(int i, StringBuilder sb) {
+        int end = offsets.get(i + 1);
+
+        for (int pos = offsets.get(i); pos < end; pos++) {
+            sb.append(chars.get(pos));
+        }
+    }
+
+    /**
+     * Returns position of the string or -1 if the table does not contain it.
+     */
+    public int indexOf(CharSequence str) {
+        int capacity = index.limit();
+
+        if (capacity == 0 || str == null) {
+            return EMPTY;
+        }
+
+        int mask = capacity - 1;
+        int pos = mix(hashCode(str)) & mask;
+
+        while (true) {
+            int i = index.get(pos);
+
+            if (i == EMPTY || contentEquals(i, str)) {
+                return i;
+            }
+
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    public boolean contentEquals(int i, CharSequence str) {
+        int start = offsets.get(i);
+        int length = offsets.get(i + 1) - start;
+
+        if (length != str.length()) {
+            return false;
+        }
+
+        for (int pos = 0; pos < length; pos++) {
+            if (chars.get(start + pos) != str.charAt(pos)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Compares two strings of the table as {@link String#compareTo(String)} does.
+     */
+    int compare(int i, int j) {
+        int start1 = offsets.get(i);
+        int length1 = offsets.get(i + 1) - start1;
+        int start2 = offsets.get(j);
+        int length2 = offsets.get(j + 1) - start2;
+
+        for (int pos = 0; pos < Math.min(length1, length2); pos++) {
+            char c1 = chars.get(start1 + pos);
+            char c2 = chars.get(start2 + pos);
+
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+
+        return length1 - length2;
+    }
+
+    CharBuffer getChars() {
+        return chars.duplicate();
+    }
+
+    IntBuffer getOffsets() {
+        return offsets.duplicate();
+    }
+
+    IntBuffer getIndex() {
+        return index.duplicate();
+    }
+
+    /**
+     * Same as {@link String#hashCode()} but for any char sequence.
+     */
+    static int hashCode(CharSequence str) {
+        int hash = 0;
+
+        for (int i = 0; i < str.length(); i++) {
+            hash = 31 * hash + str.charAt(i);
+        }
+
+        return hash;
+    }
+
+    static int mix(int hash) {
+        hash *= 0x9E3779B9;
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int size) {
+        int capacity = 16;
+
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+}
@@ -0,0 +1,52 @@
+package io.arusland.text.markov;
+
+/**
+ * How likely a text is under a {@link ChainModel}, see {@link Scorer}.
+ *
+ * @since 2026-10-18
+ */
+public final class TextScore {
+    private final int tokenCount;
+    private final int unknownCount;
+    private final double logLikelihood;
+
+    public TextScore(int tokenCount, int unknownCount, double logLikelihood) {
+        this.tokenCount = tokenCount;
+        this.unknownCount = unknownCount;
+        this.logLikelihood = logLikelihood;
+    }
+
+    /**
+     * Returns count of scored words and ends of sentences.
+     */
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    /**
+     * Returns count of words unknown to the model.
+     */
+    public int getUnknownCount() {
+        return unknownCount;
+    }
+
+    /**
+     * Returns natural logarithm of the probability of the text.
+     */
+    public double getLogLikelihood() {
+        return logLikelihood;
+    }
+
+    /**
+     * Returns perplexity per token, 1 for a text without words.
+     */
+    public double getPerplexity() {
+        return tokenCount > 0 ? Math.exp(-logLikelihood / tokenCount) : 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("perplexity %.1f, log-likelihood %.2f, %d tokens, %d unknown",
+                getPerplexity(), logLikelihood, tokenCount, unknownCount);
+    }
+}
@@ -0,0 +1,214 @@
+package io.arusland.text.markov;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Dictionary which maps every distinct token to a dense int id.
+ * <p>
+ * Ids are assigned in order of first appearance starting with 0.
+ *
+ * @since 2026-10-18
+ */
+public class Vocabulary {
+    private static final int EMPTY = -1;
+    private String[] words;
+    private int[] table;
+    private int size;
+
+    public Vocabulary() {
+        this(16);
+    }
+
+    public Vocabulary(int expectedSize) {
+        words = new String[Math.max(expectedSize, 16)];
+        table = new int[tableSizeFor(expectedSize)];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * Returns id of the word or -1 if the word is unknown.
+     */
+    public int getId(String word) {
+        if (word == null) {
+            return EMPTY;
+        }
+
+        return table[find(word.hashCode(), word)];
+    }
+
+    /**
+     * Returns id of the word adding it to the dictionary when it is unknown.
+     */
+    public int intern(String word) {
+        int index = find(word.hashCode(), word);
+        int id = table[index];
+
+        return id != EMPTY ? id : add(index, word);
+    }
+
+    /**
+     * Same as {@link #intern(String)} for the word held in the char array,
+     * the string is allocated only when the word is new to the dictionary.
+     */
+    public int intern(char[] chars, int offset, int length) {
+        int hash = 0;
+
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+
+        int index = find(hash, chars, offset, length);
+        int id = table[index];
+
+        return id != EMPTY ? id : add(index, new String(chars, offset, length));
+    }
+
+    private int find(int hash, String word) {
+        int mask = table.length - 1;
+        int index = StringTable.mix(hash) & mask;
+
+        while (table[index] != EMPTY && !words[table[index]].equals(word)) {
+            index = (index + 1) & mask;
+        }
+
+        return index;
+    }
+
+    private int find(int hash, char[] chars, int offset, int length) {
+        int mask = table.length - 1;
+        int index = StringTable.mix(hash) & mask;
+
+        while (table[index] != EMPTY && !equals(words[table[index]], chars, offset, length)) {
+            index = (index + 1) & mask;
+        }
+
+        return index;
+    }
+
+    private int add(int index, String word) {
+        if (size == words.length) {
+            words = Arrays.copyOf(words, size << 1);
+        }
+
+        int id = size++;
+        words[id] = word;
+        table[index] = id;
+
+        if (size * 2 > table.length) {
+            rehash(table.length << 1);
+        }
+
+        return id;
+    }
+
+    private static boolean equals(String word, char[] chars, int offset, int length) {
+        if (word.length() != length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (word.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public String getWord(int id) {
+        return words[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns immutable packed copy of the dictionary, ids are kept.
+     */
+    public StringTable toStringTable() {
+        return StringTable.of(words, size, true);
+    }
+
+    /**
+     * Returns immutable packed copy of the dictionary where words found in the names map
+     * are replaced with the names, ids are kept.
+     */
+    public StringTable toStringTable(Map<String, String> names) {
+        String[] result = Arrays.copyOf(words, size);
+
+        for (int id = 0; id < size; id++) {
+            String name = names.get(result[id]);
+
+            if (name != null) {
+                result[id] = name;
+            }
+        }
+
+        return StringTable.of(result, size, true);
+    }
+
+    /**
+     * Returns immutable packed copy of the dictionary where words resolved as names
+     * are replaced with the names, ids are kept.
+     */
+    public StringTable toStringTable(NameIndex names) {
+        String[] result = Arrays.copyOf(words, size);
+
+        for (int id = 0; id < size; id++) {
+            String name = names.getName(id);
+
+            if (name != null) {
+                result[id] = name;
+            }
+        }
+
+        return StringTable.of(result, size, true);
+    }
+
+    public void clear() {
+        Arrays.fill(words, null);
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Returns approximate heap size of the dictionary in bytes including the strings.
+     */
+    public long sizeInBytes() {
+        long bytes = 4L * words.length + 4L * table.length;
+
+        for (int id = 0; id < size; id++) {
+            bytes += 40 + 2L * words[id].length();
+        }
+
+        return bytes;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        int mask = capacity - 1;
+
+        for (int id = 0; id < size; id++) {
+            int index = StringTable.mix(words[id].hashCode()) & mask;
+
+            while (table[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+
+            table[index] = id;
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = 16;
+
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+}
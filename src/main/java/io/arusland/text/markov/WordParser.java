@@ -1,78 +1,187 @@
 package io.arusland.text.markov;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 /**
+ * Splits text into lowercased words and {@link Wordogram#TOKEN_END} tokens and collects names and word statistics.
+ * <p>
+ * The text is scanned once, chars are lowercased on the fly into a reused buffer
+ * and every word is interned into a {@link Vocabulary}, so a string is allocated
+ * only for a word met for the first time.
+ * <p>
+ * Words are made of chars of the {@link Alphabet}, which is Russian by default.
+ * UTF-8 input of channels is decoded by the parser itself straight into the tokenizer.
+ * With a {@link SentenceFilter} words of every sentence are held back till its end
+ * together with their counts and names, and the sentence is skipped if the filter has seen it.
+ *
  * @author Ruslan Absalyamov
  * @since 2017-03-07
  */
 public class WordParser {
+    private static final int CHUNK_SIZE = 64 * 1024;
     private boolean debug;
+    private Alphabet alphabet = Alphabet.RUSSIAN;
+    private SentenceFilter sentenceFilter;
 
     public List<String> parse(String raw, Map<String, String> names, Map<String, Integer> stats) {
-        String content = raw.toLowerCase();
+        Vocabulary vocabulary = new Vocabulary();
         List<String> words = new ArrayList<>();
+        Tokenizer tokenizer = new Tokenizer(names, stats, vocabulary, id -> words.add(vocabulary.getWord(id)));
+        Metrics metrics = Metrics.global();
+        long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
 
-        int startIndex = 0;
+        for (int i = 0; i < raw.length(); i++) {
+            tokenizer.accept(raw.charAt(i));
+        }
 
-        for (int i = 0; i < content.length(); i++) {
-            char ch = content.charAt(i);
+        tokenizer.finish();
 
-            if (isTokenChar(ch)) {
-                continue;
-            }
+        if (metrics.isEnabled()) {
+            metrics.recordParse(0, tokenizer.tokenCount, System.nanoTime() - startTime);
+        }
 
-            if (i > startIndex) {
-                String nextWord = content.substring(startIndex, i);
-                String rawNextWord = raw.substring(startIndex, i);
+        resolveNames(names, stats);
 
-                if (!rawNextWord.equals(nextWord) &&
-                        !isLastEndWord(words) && words.size() > 0) {
+        return words.stream()
+                .map(word -> names.containsKey(word) ? names.get(word) : word)
+                .collect(Collectors.toList());
+    }
 
-                    if (!names.containsKey(nextWord)) {
-                        if (debug) {
-                            printContext(raw, startIndex, nextWord);
-                        }
+    /**
+     * Reads UTF-8 text from the channel chunk by chunk and adds lowercased words
+     * and {@link Wordogram#TOKEN_END} to the wordogram as soon as they are parsed.
+     * <p>
+     * Words are counted in {@link Wordogram#getNames()}, so names are resolved when the model is built
+     * and the cost of parsing a text does not depend on how many texts were loaded before.
+     */
+    public void parse(ReadableByteChannel channel, Wordogram wordogram) throws IOException {
+        tokenize(channel, new Tokenizer(wordogram.getNames(), wordogram.getVocabulary(), wordogram::addNext));
+    }
 
-                        names.put(nextWord, rawNextWord);
-                    }
-                }
+    /**
+     * Reads UTF-8 text from the channel and passes lowercased words to the consumer,
+     * names and word statistics are collected the same way as {@link #parse(String, Map, Map)} does.
+     */
+    public void parse(ReadableByteChannel channel, Map<String, String> names, Map<String, Integer> stats,
+                      Consumer<String> consumer) throws IOException {
+        Vocabulary vocabulary = new Vocabulary();
+        tokenize(channel, new Tokenizer(names, stats, vocabulary, id -> consumer.accept(vocabulary.getWord(id))));
+        resolveNames(names, stats);
+    }
 
-                if (isLegalWord(nextWord)) {
-                    words.add(nextWord);
-                    putWordStats(stats, rawNextWord);
-                } else {
-                    addEndChar(words);
-                }
-            }
+    /**
+     * Splits the text into lowercased words and {@link Wordogram#TOKEN_END} tokens and passes their ids
+     * in the vocabulary to the consumer, names are not collected.
+     */
+    void tokenize(CharSequence text, Vocabulary vocabulary, IntConsumer consumer) {
+        Tokenizer tokenizer = new Tokenizer(null, null, null, vocabulary, consumer);
 
-            if (isEndChar(ch)) {
-                addEndChar(words);
-            }
+        for (int i = 0; i < text.length(); i++) {
+            tokenizer.accept(text.charAt(i));
+        }
+
+        tokenizer.finish();
+    }
 
-            startIndex = i + 1;
+    private void tokenize(ReadableByteChannel channel, Tokenizer tokenizer) throws IOException {
+        byte[] bytes = new byte[CHUNK_SIZE];
+        Metrics metrics = Metrics.global();
+        long startTime = metrics.isEnabled() ? System.nanoTime() : 0;
+        long bytesRead = 0;
+        int length = 0;
+        int read;
+
+        while ((read = channel.read(ByteBuffer.wrap(bytes, length, bytes.length - length))) >= 0) {
+            length += read;
+            bytesRead += read;
+            int decoded = decode(bytes, length, false, tokenizer);
+
+            // a multibyte char split between chunks is moved to the start and completed by the next read
+            System.arraycopy(bytes, decoded, bytes, 0, length - decoded);
+            length -= decoded;
         }
 
-        if (startIndex < content.length()) {
-            words.add(content.substring(startIndex));
+        decode(bytes, length, true, tokenizer);
+        tokenizer.finish();
+
+        if (metrics.isEnabled()) {
+            metrics.recordParse(bytesRead, tokenizer.tokenCount, System.nanoTime() - startTime);
         }
+    }
 
-        addEndChar(words);
+    /**
+     * Decodes UTF-8 bytes into chars of the tokenizer and returns count of decoded bytes,
+     * which is less than the length if the bytes end in the middle of a char and more input follows.
+     * Malformed bytes are replaced with U+FFFD like a decoder with {@link java.nio.charset.CodingErrorAction#REPLACE} does.
+     */
+    private static int decode(byte[] bytes, int length, boolean endOfInput, Tokenizer tokenizer) {
+        int i = 0;
 
-        List<String> allNames = new ArrayList<>(names.keySet());
+        while (i < length) {
+            int lead = bytes[i];
 
-        for (String name : allNames) {
-            if (!isRealName(names.get(name), stats)){
-                names.remove(name);
+            if (lead >= 0) {
+                tokenizer.accept((char) lead);
+                i++;
+                continue;
+            }
+
+            int size;
+            int min;
+            int cp;
+
+            if ((lead & 0xE0) == 0xC0) {
+                size = 2;
+                min = 0x80;
+                cp = lead & 0x1F;
+            } else if ((lead & 0xF0) == 0xE0) {
+                size = 3;
+                min = 0x800;
+                cp = lead & 0x0F;
+            } else if ((lead & 0xF8) == 0xF0) {
+                size = 4;
+                min = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+                cp = lead & 0x07;
+            } else {
+                tokenizer.accept(Tokenizer.REPLACEMENT);
+                i++;
+                continue;
+            }
+
+            if (i + size > length && !endOfInput) {
+                return i;
+            }
+
+            int next = i + 1;
+
+            while (next < i + size && next < length && (bytes[next] & 0xC0) == 0x80) {
+                cp = cp << 6 | bytes[next++] & 0x3F;
+            }
+
+            if (next < i + size || cp < min || cp > Character.MAX_CODE_POINT ||
+                    cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE) {
+                tokenizer.accept(Tokenizer.REPLACEMENT);
+                i++;
+            } else if (size == 4) {
+                tokenizer.accept(Character.highSurrogate(cp));
+                tokenizer.accept(Character.lowSurrogate(cp));
+                i = next;
+            } else {
+                tokenizer.accept((char) cp);
+                i = next;
             }
         }
 
-        return words.stream()
-                .map(word -> names.containsKey(word) ? names.get(word) : word)
-                .collect(Collectors.toList());
+        return i;
     }
 
     public boolean isDebug() {
@@ -83,11 +192,36 @@ public class WordParser {
         this.debug = debug;
     }
 
-    private void printContext(String raw, int startIndex, String nextWord) {
-        int hightlightStart = Math.max(0, startIndex - 20);
-        int highlightEnd = Math.min(raw.length(), startIndex + 20);
-        System.out.println("name: " + nextWord + "; context: '..." +
-                raw.substring(hightlightStart, highlightEnd).replaceAll("\n", "") + "...'");
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    public void setAlphabet(Alphabet alphabet) {
+        this.alphabet = alphabet;
+    }
+
+    public SentenceFilter getSentenceFilter() {
+        return sentenceFilter;
+    }
+
+    /**
+     * Sets filter of sentences seen before, which are skipped, or null to keep all sentences.
+     */
+    public void setSentenceFilter(SentenceFilter sentenceFilter) {
+        this.sentenceFilter = sentenceFilter;
+    }
+
+    /**
+     * Removes words which are more often met in lower case than as the name.
+     */
+    public void resolveNames(Map<String, String> names, Map<String, Integer> stats) {
+        List<String> allNames = new ArrayList<>(names.keySet());
+
+        for (String name : allNames) {
+            if (!isRealName(names.get(name), stats)){
+                names.remove(name);
+            }
+        }
     }
 
     private boolean isRealName(String rawName, Map<String, Integer> stats) {
@@ -101,51 +235,315 @@ public class WordParser {
         return true;
     }
 
-    private void putWordStats(Map<String, Integer> stats, String word) {
-        Integer count = stats.get(word);
+    /**
+     * Splits text fed char by char into words, so a word may span several chunks of input.
+     * <p>
+     * Words are counted either in a {@link NameIndex} or in names and stats maps or not at all.
+     */
+    private class Tokenizer {
+        static final char REPLACEMENT = '\uFFFD';
+        private static final int CONTEXT_SIZE = 20;
+        /**
+         * Kinds of counts of a word, which is otherwise counted by its id in raw words.
+         */
+        private static final int NOT_COUNTED = -1;
+        private static final int LOWERCASE = -2;
+        private static final int CAPITALIZED = -3;
+        private final Alphabet alphabet = WordParser.this.alphabet;
+        private final SentenceFilter filter;
+        /**
+         * Words of the current sentence held back till the filter accepts it
+         * with their counts and the names met, see {@link #countWord(int, int, String)}.
+         */
+        private int[] sentence = new int[32];
+        private int[] sentenceCounts = new int[32];
+        private String[] sentenceNames = new String[32];
+        private int sentenceLength;
+        private long sentenceHash;
+        private long sentenceBytes;
+        private final NameIndex nameIndex;
+        private final Map<String, String> names;
+        private final Map<String, Integer> stats;
+        private final Vocabulary vocabulary;
+        private final IntConsumer consumer;
+        private final int endId;
+        /**
+         * Words as met in the text with their counts, flushed to the stats map when the text ends.
+         */
+        private final Vocabulary rawWords = new Vocabulary();
+        private int[] rawCounts = new int[16];
+        private char[] word = new char[32];
+        private char[] rawWord = new char[32];
+        private int length;
+        private boolean rawDiffers;
+        private final StringBuilder context = new StringBuilder();
+        private boolean wordsAdded;
+        private boolean lastEndWord;
+        private long tokenCount;
+
+        Tokenizer(NameIndex nameIndex, Vocabulary vocabulary, IntConsumer consumer) {
+            this(nameIndex, null, null, vocabulary, consumer);
+        }
 
-        if (count != null) {
-            stats.put(word, count + 1);
-        } else {
-            stats.put(word, 1);
+        Tokenizer(Map<String, String> names, Map<String, Integer> stats, Vocabulary vocabulary,
+                  IntConsumer consumer) {
+            this(null, names, stats, vocabulary, consumer);
         }
-    }
 
-    private void addEndChar(List<String> words) {
-        if (words.size() > 0 && !isLastEndWord(words)) {
-            words.add(Wordogram.TOKEN_END);
+        private Tokenizer(NameIndex nameIndex, Map<String, String> names, Map<String, Integer> stats,
+                          Vocabulary vocabulary, IntConsumer consumer) {
+            this.nameIndex = nameIndex;
+            this.names = names;
+            // texts are only filtered when loaded, scored texts are taken whole
+            this.filter = nameIndex != null || names != null ? sentenceFilter : null;
+            this.stats = stats;
+            this.vocabulary = vocabulary;
+            this.consumer = consumer;
+            this.endId = vocabulary.intern(Wordogram.TOKEN_END);
         }
-    }
 
-    private boolean isLastEndWord(List<String> words) {
-        return words.size() > 0 && words.get(words.size() - 1).equals(Wordogram.TOKEN_END);
-    }
+        void accept(char rawCh) {
+            char ch = alphabet.fold(rawCh);
 
-    private boolean isEndChar(char ch) {
-        return ch == '.' || ch == '?' || ch == '!' || ch == ';' ||
-                ch == '…' || ch == ':';
-    }
+            if (debug) {
+                appendContext(rawCh);
+            }
+
+            if (filter != null) {
+                // UTF-8 size, a supplementary char takes 4 bytes for its two surrogates
+                sentenceBytes += rawCh < 0x80 ? 1 : rawCh < 0x800 || Character.isSurrogate(rawCh) ? 2 : 3;
+            }
+
+            if (ch != 0) {
+                if (length == word.length) {
+                    word = Arrays.copyOf(word, length << 1);
+                    rawWord = Arrays.copyOf(rawWord, length << 1);
+                }
+
+                word[length] = ch;
+                rawWord[length++] = rawCh;
+                rawDiffers |= ch != rawCh;
+
+                return;
+            }
+
+            if (length > 0) {
+                addToken();
+                length = 0;
+                rawDiffers = false;
+            }
+
+            if (alphabet.isEnd(rawCh)) {
+                addEndChar();
+            }
+        }
+
+        void finish() {
+            if (length > 0) {
+                addWord(vocabulary.intern(word, 0, length), NOT_COUNTED, null);
+                length = 0;
+                rawDiffers = false;
+            }
+
+            addEndChar();
+
+            if (stats == null) {
+                return;
+            }
+
+            for (int rawId = 0; rawId < rawWords.size(); rawId++) {
+                // words met only in skipped sentences are not counted
+                if (rawId < rawCounts.length && rawCounts[rawId] > 0) {
+                    stats.merge(rawWords.getWord(rawId), rawCounts[rawId], Integer::sum);
+                }
+            }
+        }
+
+        private void addToken() {
+            if (nameIndex != null) {
+                countToken();
+            } else if (names == null) {
+                if (rawDiffers || isLegalWord()) {
+                    addWord(vocabulary.intern(word, 0, length), NOT_COUNTED, null);
+                } else {
+                    addEndChar();
+                }
+            } else if (rawDiffers) {
+                // a word with capital letters always has a letter, so it is legal
+                int id = vocabulary.intern(word, 0, length);
+                int rawId = rawWords.intern(rawWord, 0, length);
+                String name = null;
+
+                if (!lastEndWord && wordsAdded) {
+                    String nextWord = vocabulary.getWord(id);
+
+                    if (!names.containsKey(nextWord)) {
+                        if (debug) {
+                            printContext(nextWord);
+                        }
+
+                        name = rawWords.getWord(rawId);
+                    }
+                }
+
+                addWord(id, rawId, name);
+            } else if (isLegalWord()) {
+                int id = vocabulary.intern(word, 0, length);
+                addWord(id, rawWords.intern(vocabulary.getWord(id)), null);
+            } else {
+                addEndChar();
+            }
+        }
+
+        private void countToken() {
+            if (rawDiffers) {
+                int id = vocabulary.intern(word, 0, length);
+                String form = null;
+
+                if (!lastEndWord && wordsAdded && !nameIndex.hasForm(id)) {
+                    if (debug) {
+                        printContext(vocabulary.getWord(id));
+                    }
+
+                    form = new String(rawWord, 0, length);
+                }
+
+                addWord(id, CAPITALIZED, form);
+            } else if (isLegalWord()) {
+                addWord(vocabulary.intern(word, 0, length), LOWERCASE, null);
+            } else {
+                addEndChar();
+            }
+        }
+
+        private boolean isLegalWord() {
+            if (length == 1 && word[0] == '-') {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (!alphabet.isDigit(word[i])) {
+                    return true;
+                }
+            }
 
-    private boolean isLegalWord(String word) {
-        if (word.length() == 1 && word.charAt(0) == '-'){
             return false;
         }
 
-        for (int i = 0; i < word.length(); i++) {
-            if (!Character.isDigit(word.charAt(i))) {
-                return true;
+        /**
+         * Counts the word in the name index or in raw words and keeps the name met first for the word.
+         *
+         * @param count id of the raw word, {@link #LOWERCASE}, {@link #CAPITALIZED} or {@link #NOT_COUNTED}
+         * @param name the word as written after another word or null
+         */
+        private void countWord(int id, int count, String name) {
+            if (count == CAPITALIZED) {
+                nameIndex.addCapitalized(id);
+            } else if (count == LOWERCASE) {
+                nameIndex.addLowercase(id);
+            } else if (count != NOT_COUNTED) {
+                countRawWord(count);
+            }
+
+            if (name == null) {
+                return;
+            }
+
+            // an earlier word of the same sentence may have been the name already
+            if (nameIndex != null) {
+                if (!nameIndex.hasForm(id)) {
+                    nameIndex.putForm(id, name);
+                }
+            } else {
+                names.putIfAbsent(vocabulary.getWord(id), name);
+            }
+        }
+
+        private void countRawWord(int rawId) {
+            if (rawId >= rawCounts.length) {
+                rawCounts = Arrays.copyOf(rawCounts, Math.max(rawId + 1, rawCounts.length << 1));
             }
+
+            rawCounts[rawId]++;
         }
 
-        return false;
-    }
+        private void addWord(int id, int count, String name) {
+            if (filter != null) {
+                holdWord(id, count, name);
+            } else {
+                countWord(id, count, name);
+                consumer.accept(id);
+                tokenCount++;
+            }
 
-    private boolean isRussianChar(char ch) {
-        return ch >= 'а' && ch <= 'я' || ch == 'ё';
-    }
+            wordsAdded = true;
+            lastEndWord = false;
+        }
+
+        /**
+         * Adds the word to the current sentence, its chars are still in the word buffer.
+         */
+        private void holdWord(int id, int count, String name) {
+            if (sentenceLength == sentence.length) {
+                sentence = Arrays.copyOf(sentence, sentenceLength << 1);
+                sentenceCounts = Arrays.copyOf(sentenceCounts, sentenceLength << 1);
+                sentenceNames = Arrays.copyOf(sentenceNames, sentenceLength << 1);
+            }
+
+            sentenceCounts[sentenceLength] = count;
+            sentenceNames[sentenceLength] = name;
+            sentence[sentenceLength++] = id;
+            long hash = sentenceHash * 31 + length;
+
+            for (int i = 0; i < length; i++) {
+                hash = hash * 0x100000001B3L + word[i];
+            }
+
+            sentenceHash = hash;
+        }
 
-    private boolean isTokenChar(char ch) {
-        return //Character.isAlphabetic(ch)
-                isRussianChar(ch) || ch == '-' || Character.isDigit(ch);
+        private void addEndChar() {
+            if (!wordsAdded || lastEndWord) {
+                return;
+            }
+
+            lastEndWord = true;
+
+            if (filter != null) {
+                boolean accepted = filter.accept(sentenceHash, sentenceLength, sentenceBytes);
+
+                for (int i = 0; accepted && i < sentenceLength; i++) {
+                    countWord(sentence[i], sentenceCounts[i], sentenceNames[i]);
+                    consumer.accept(sentence[i]);
+                    tokenCount++;
+                }
+
+                Arrays.fill(sentenceNames, 0, sentenceLength, null);
+                sentenceLength = 0;
+                sentenceHash = 0;
+                sentenceBytes = 0;
+
+                if (!accepted) {
+                    return;
+                }
+            }
+
+            consumer.accept(endId);
+            tokenCount++;
+        }
+
+        private void appendContext(char rawCh) {
+            if (rawCh != '\n') {
+                context.append(rawCh);
+            }
+
+            if (context.length() > CONTEXT_SIZE * 2) {
+                context.delete(0, context.length() - CONTEXT_SIZE * 2);
+            }
+        }
+
+        private void printContext(String nextWord) {
+            System.out.println("name: " + nextWord + "; context: '..." + context + "...'");
+        }
     }
-}
\ No newline at end of file
+}
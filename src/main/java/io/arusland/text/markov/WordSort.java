@@ -0,0 +1,110 @@
+package io.arusland.text.markov;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Sorts ids of words by their words without boxing the ids or materializing the words.
+ * <p>
+ * Ids are sorted by primitive keys made of a prefix of every word and its id,
+ * then only ids of equal prefixes are compared word by word.
+ *
+ * @since 2026-10-18
+ */
+final class WordSort {
+    /**
+     * Size of ranges of equal prefixes sorted by insertion.
+     */
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    private WordSort() {
+    }
+
+    /**
+     * Returns ids from the first one to the last one sorted by the comparator.
+     *
+     * @param prefix     non-negative key of the start of the word of an id, ordered as the words are
+     * @param comparator order of the ids, ties are broken by the comparator itself
+     */
+    static int[] sort(int first, int last, IntUnaryOperator prefix, IntBinaryOperator comparator) {
+        int size = Math.max(last - first + 1, 0);
+        long[] keys = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            keys[i] = (long) prefix.applyAsInt(first + i) << 32 | (first + i);
+        }
+
+        Arrays.sort(keys);
+        int[] ids = new int[size];
+        int[] buffer = null;
+        int start = 0;
+
+        for (int i = 0; i <= size; i++) {
+            if (i == size || keys[i] >>> 32 != keys[start] >>> 32) {
+                if (i - start > 1) {
+                    if (buffer == null) {
+                        buffer = new int[size];
+                    }
+
+                    sort(ids, start, i, buffer, comparator);
+                }
+
+                start = i;
+            }
+
+            if (i < size) {
+                ids[i] = (int) keys[i];
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns prefix of the word for {@link #sort(int, int, IntUnaryOperator, IntBinaryOperator)}.
+     */
+    static int prefix(StringTable words, int id) {
+        int length = words.length(id);
+
+        return prefix(length > 0 ? words.charAt(id, 0) : 0, length > 1 ? words.charAt(id, 1) : 0);
+    }
+
+    /**
+     * Returns the first char and the upper bits of the second one, missing chars are 0,
+     * so prefixes are ordered as the words are and fit into a non-negative int.
+     */
+    static int prefix(char first, char second) {
+        return first << 15 | second >>> 1;
+    }
+
+    /**
+     * Sorts the range of ids with a merge sort, the buffer is as long as the ids.
+     */
+    private static void sort(int[] ids, int from, int to, int[] buffer, IntBinaryOperator comparator) {
+        if (to - from <= INSERTION_SORT_SIZE) {
+            for (int i = from + 1; i < to; i++) {
+                int id = ids[i];
+                int pos = i;
+
+                for (; pos > from && comparator.applyAsInt(ids[pos - 1], id) > 0; pos--) {
+                    ids[pos] = ids[pos - 1];
+                }
+
+                ids[pos] = id;
+            }
+
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        sort(ids, from, mid, buffer, comparator);
+        sort(ids, mid, to, buffer, comparator);
+        System.arraycopy(ids, from, buffer, from, to - from);
+
+        for (int i = from, left = from, right = mid; i < to; i++) {
+            ids[i] = right == to || left < mid && comparator.applyAsInt(buffer[left], buffer[right]) <= 0
+                    ? buffer[left++] : buffer[right++];
+        }
+    }
+}
@@ -1,45 +1,690 @@
 package io.arusland.text.markov;
 
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * Counts which words follow which states of the chain.
+ * <p>
+ * For order N the state is the tuple of up to N previous words of the current sentence.
+ * A state of one word is identified by the word id itself, longer states are nodes of
+ * a suffix trie keyed by (shorter state, older word), so every state is one int
+ * and a transition is one packed long key no matter the order.
+ *
  * @author Ruslan Absalyamov
  * @since 2017-03-07
  */
 public class Wordogram {
     public final static String TOKEN_END = ".";
-    private final Map<String, Map<String, Integer>> words = new HashMap<>();
-    private String lastWord = TOKEN_END;
+    /**
+     * Replaces words removed from the vocabulary by {@link #prune(PruneOptions)}.
+     */
+    public final static String TOKEN_UNKNOWN = "<UNK>";
+    public final static int MAX_ORDER = 8;
+    /**
+     * Id of {@link #TOKEN_END}, it is always the first word of the vocabulary.
+     */
+    public final static int END_ID = 0;
+    /**
+     * Flag which marks ids of states longer than one word.
+     */
+    static final int CONTEXT_FLAG = 1 << 30;
+    /**
+     * A delta is dropped when it grows over this share of transitions, the model is then rebuilt whole.
+     */
+    private static final int MAX_DELTA_SHARE = 4;
+    private static final int MIN_DELTA_LIMIT = 1 << 16;
+    private Vocabulary vocabulary = new Vocabulary();
+    private NameIndex names = new NameIndex();
+    /**
+     * Transition counts keyed by packed (state, next word id).
+     */
+    private LongIntHashMap transitions;
+    /**
+     * Suffix trie of states longer than one word: packed (state, older word id) to context index + 1.
+     */
+    private LongIntHashMap contexts;
+    private final Storage storage;
+    private int[] successorCounts = new int[16];
+    private int[] contextSuccessorCounts = new int[16];
+    private int stateCount;
+    private int order;
+    /**
+     * Previous words of the current sentence, the most recent first.
+     */
+    private final int[] history = new int[MAX_ORDER];
+    private int historySize;
+    /**
+     * Changes since the last {@link #takeDelta()} or null if they are not recorded.
+     */
+    private ModelDelta delta;
 
-    public void addNext(String word) {
-        Map<String, Integer> wordMap = words.get(lastWord);
-
-        if (wordMap == null) {
-            wordMap = new HashMap<>();
-            words.put(lastWord, wordMap);
-        }
+    public Wordogram() {
+        this(1);
+    }
 
-        Integer count = wordMap.get(word);
+    public Wordogram(int order) {
+        this(order, Storage.getDefault());
+    }
 
-        if (count != null) {
-            wordMap.put(word, count + 1);
-        } else {
-            wordMap.put(word, 1);
-        }
+    /**
+     * Creates wordogram whose transition tables and models are allocated in the storage.
+     */
+    public Wordogram(int order, Storage storage) {
+        this.storage = storage;
+        this.transitions = new LongIntHashMap(16, storage);
+        this.contexts = new LongIntHashMap(16, storage);
+        setOrder(order);
+        clear();
+    }
 
-        lastWord = word;
+    public void addNext(String word) {
+        addNext(vocabulary.intern(word));
     }
 
     public void addEndWord() {
         addNext(TOKEN_END);
     }
 
+    public int getOrder() {
+        return order;
+    }
+
+    /**
+     * Sets count of previous words the next word depends on. Can be changed only while the wordogram is empty.
+     */
+    public void setOrder(int order) {
+        if (order < 1 || order > MAX_ORDER) {
+            throw new IllegalArgumentException("Order must be in range 1.." + MAX_ORDER + ": " + order);
+        }
+
+        if (transitions.size() > 0 && order != this.order) {
+            throw new IllegalStateException("Order cannot be changed after words were added, clear the wordogram first");
+        }
+
+        this.order = order;
+    }
+
+    /**
+     * Returns copy of the first order transitions as nested maps.
+     * <p>
+     * The copy is built on every call, so use it for tests and small models only.
+     */
     public Map<String, Map<String, Integer>> getWords() {
+        Map<String, Map<String, Integer>> words = new HashMap<>();
+
+        transitions.forEach((key, count) -> {
+            int state = LongIntHashMap.high(key);
+
+            if ((state & CONTEXT_FLAG) == 0) {
+                words.computeIfAbsent(vocabulary.getWord(state), k -> new HashMap<>())
+                        .put(vocabulary.getWord(LongIntHashMap.low(key)), count);
+            }
+        });
+
+        return words;
+    }
+
+    /**
+     * Builds immutable model for sampling from the current transitions,
+     * words resolved as names by {@link #getNames()} are written as the names.
+     * <p>
+     * Model states of one word keep the word ids, longer states follow them.
+     */
+    public ChainModel toModel() {
+        return toModel(vocabulary.toStringTable(names));
+    }
+
+    /**
+     * Builds immutable model for sampling where words found in the names map are written as the names.
+     */
+    public ChainModel toModel(Map<String, String> names) {
+        return toModel(vocabulary.toStringTable(names));
+    }
+
+    /**
+     * Builds model of the chain read from right to left: a state is made of the words following
+     * a position and its successors are the words met at the position. Word ids are the same
+     * as in the model, longer states are numbered anew.
+     * <p>
+     * Every transition of the model of N words is an N + 1 words long sequence, so the reversed
+     * transition is counted from the same sequence read backwards and the reversed chain
+     * has the same order.
+     */
+    static ChainModel reverse(ChainModel model) {
+        int size = model.size();
+        int contextCount = model.getStateCount() - size;
+        // shorter state and older word of every state longer than one word
+        int[] shorterStates = new int[contextCount];
+        int[] olderWords = new int[contextCount];
+        LongBuffer contextKeys = model.getContextKeys();
+        IntBuffer contextValues = model.getContextValues();
+
+        for (int i = 0; i < contextKeys.limit(); i++) {
+            long key = contextKeys.get(i);
+
+            if (key >= 0) {
+                shorterStates[contextValues.get(i) - size] = LongIntHashMap.high(key);
+                olderWords[contextValues.get(i) - size] = LongIntHashMap.low(key);
+            }
+        }
+
+        // the reverse model is kept where the model is, a memory mapped snapshot counts as off heap
+        Wordogram reverse = new Wordogram(model.getOrder(),
+                model.getOffsets().isDirect() ? Storage.OFF_HEAP : Storage.HEAP);
+        // words of the state, the most recent first
+        int[] words = new int[model.getOrder()];
+
+        for (int state = 0; state < model.getStateCount(); state++) {
+            int length = 0;
+
+            for (int current = state; ; current = shorterStates[current - size]) {
+                if (current < size) {
+                    words[length++] = current;
+                    break;
+                }
+
+                words[length++] = olderWords[current - size];
+            }
+
+            // the state was collected from the oldest word, turn it to the most recent first
+            for (int i = 0, j = length - 1; i < j; i++, j--) {
+                int word = words[i];
+                words[i] = words[j];
+                words[j] = word;
+            }
+
+            for (int index = 0; index < model.getSuccessorCount(state); index++) {
+                int next = model.getSuccessor(state, index);
+                // read backwards the oldest word of the state is the successor, the word after it
+                // is the most recent one of the reversed state and the next word is the oldest one
+                int reverseState = next;
+
+                if (length > 1) {
+                    reverseState = words[length - 2];
+
+                    for (int i = length - 3; i >= 0; i--) {
+                        reverseState = reverse.getOrAddContext(reverseState, words[i]);
+                    }
+
+                    reverseState = reverse.getOrAddContext(reverseState, next);
+                }
+
+                reverse.addTransition(reverseState, words[length - 1], model.getSuccessorWeight(state, index));
+            }
+        }
+
+        return reverse.toModel(model.getWords());
+    }
+
+    /**
+     * Returns words as they are written in models, words resolved as names are replaced with the names.
+     */
+    String[] getModelWords() {
+        String[] words = new String[vocabulary.size()];
+
+        for (int id = 0; id < words.length; id++) {
+            String name = names.getName(id);
+            words[id] = name != null ? name : vocabulary.getWord(id);
+        }
+
         return words;
     }
 
+    /**
+     * Returns changes made since the previous call and starts recording new ones, so the model built
+     * at the previous call is brought up to date by {@link ModelDelta#applyTo} without reading the wordogram.
+     * <p>
+     * Returns null on the first call, after changes which renumber words or states, such as {@link #clear()}
+     * and {@link #prune(PruneOptions)}, and after too many changes to keep, then the model is built anew.
+     */
+    ModelDelta takeDelta() {
+        ModelDelta taken = delta;
+
+        if (taken != null) {
+            taken.freeze(vocabulary, names);
+        }
+
+        delta = new ModelDelta(vocabulary.size(), contexts.size());
+
+        return taken;
+    }
+
+    ChainModel toModel(StringTable words) {
+        int size = words.size();
+        int contextCount = contexts.size();
+        int stateTotal = size + contextCount;
+        int[] offsets = new int[stateTotal + 1];
+
+        for (int id = 0; id < size; id++) {
+            offsets[id + 1] = offsets[id] + countAt(successorCounts, id);
+        }
+
+        for (int index = 0; index < contextCount; index++) {
+            offsets[size + index + 1] = offsets[size + index] + countAt(contextSuccessorCounts, index);
+        }
+
+        int[] positions = Arrays.copyOf(offsets, stateTotal);
+        long[] rows = new long[transitions.size()];
+
+        transitions.forEach((key, count) -> {
+            int pos = positions[toModelState(LongIntHashMap.high(key), size)]++;
+            rows[pos] = LongIntHashMap.key(LongIntHashMap.low(key), count);
+        });
+
+        int[] successors = new int[rows.length];
+        int[] weights = new int[rows.length];
+
+        for (int state = 0; state < stateTotal; state++) {
+            // rows are sorted by word id to not depend on the order words were added in
+            Arrays.sort(rows, offsets[state], offsets[state + 1]);
+            int weight = 0;
+
+            for (int i = offsets[state]; i < offsets[state + 1]; i++) {
+                weight += LongIntHashMap.low(rows[i]);
+                successors[i] = LongIntHashMap.high(rows[i]);
+                weights[i] = weight;
+            }
+        }
+
+        LongIntHashMap modelContexts = new LongIntHashMap(contextCount, storage);
+
+        contexts.forEach((key, index) -> modelContexts.put(
+                LongIntHashMap.key(toModelState(LongIntHashMap.high(key), size), LongIntHashMap.low(key)),
+                size + index - 1));
+
+        StringTable modelWords = words.place(storage);
+        IntBuffer modelOffsets = storage.place(IntBuffer.wrap(offsets));
+        IntBuffer modelSuccessors = storage.place(IntBuffer.wrap(successors));
+        IntBuffer modelWeights = storage.place(IntBuffer.wrap(weights));
+
+        return new ChainModel(modelWords, order, modelOffsets, modelSuccessors, modelWeights,
+                modelContexts.getKeys(), modelContexts.getValues(),
+                StatsIndex.build(modelWords, modelOffsets, modelSuccessors, modelWeights, storage));
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public Vocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * Returns counts of lowercased and capitalized occurrences of the vocabulary words.
+     */
+    public NameIndex getNames() {
+        return names;
+    }
+
+    /**
+     * Returns count of words which have at least one next word.
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Returns count of states longer than one word.
+     */
+    public int getContextCount() {
+        return contexts.size();
+    }
+
+    public int getTransitionCount() {
+        return transitions.size();
+    }
+
+    /**
+     * Returns approximate size of the model in bytes, transition tables are kept off heap
+     * with the {@link Storage#OFF_HEAP} storage.
+     */
+    public long getMemoryUsage() {
+        return vocabulary.sizeInBytes() + names.sizeInBytes() + transitions.sizeInBytes() + contexts.sizeInBytes()
+                + 4L * successorCounts.length + 4L * contextSuccessorCounts.length;
+    }
+
+    /**
+     * Returns approximate heap size the same model would take stored as
+     * <code>HashMap&lt;String, HashMap&lt;String, Integer&gt;&gt;</code>.
+     */
+    public long getHashMapMemoryUsage() {
+        // HashMap object + outer node + table slot per state,
+        // node + boxed Integer + table slot per transition,
+        // a state of several words is a concatenated string key
+        return vocabulary.sizeInBytes() - 8L * vocabulary.size()
+                + 96L * (stateCount + contexts.size()) + 48L * contexts.size()
+                + 53L * transitions.size();
+    }
+
     public void clear() {
-        words.clear();
+        delta = null;
+        vocabulary.clear();
+        names.clear();
+        transitions.clear();
+        contexts.clear();
+        Arrays.fill(successorCounts, 0);
+        Arrays.fill(contextSuccessorCounts, 0);
+        stateCount = 0;
+        history[0] = vocabulary.intern(TOKEN_END);
+        historySize = 1;
+    }
+
+    /**
+     * Adds all counts of the other wordogram of the same order to this one.
+     * <p>
+     * Words and states new to this wordogram are added in the order they appeared in the other one,
+     * so merging wordograms of consecutive texts gives the same result as adding the texts one by one.
+     */
+    public void merge(Wordogram other) {
+        if (other.order != order) {
+            throw new IllegalArgumentException("Cannot merge wordogram of order " + other.order + " into " + order);
+        }
+
+        int[] wordIds = new int[other.vocabulary.size()];
+
+        for (int id = 0; id < wordIds.length; id++) {
+            wordIds[id] = vocabulary.intern(other.vocabulary.getWord(id));
+        }
+
+        names.merge(other.names, wordIds);
+        merge(other, wordIds);
+    }
+
+    /**
+     * Removes rare transitions and words to reduce memory, see {@link PruneOptions} for the limits.
+     * <p>
+     * Words out of the vocabulary limit are replaced with {@link #TOKEN_UNKNOWN} and their counts are summed,
+     * then transitions are filtered per state and words no longer used are removed.
+     * The current sentence is ended.
+     */
+    public void prune(PruneOptions options) {
+        int size = vocabulary.size();
+        int[] frequencies = new int[size];
+
+        transitions.forEach((key, count) -> {
+            if ((LongIntHashMap.high(key) & CONTEXT_FLAG) == 0) {
+                int word = LongIntHashMap.low(key);
+                frequencies[word] = (int) Math.min(Integer.MAX_VALUE, (long) frequencies[word] + count);
+            }
+        });
+
+        boolean[] kept = selectWords(frequencies, options.getMaxVocabularySize());
+        Wordogram mapped = new Wordogram(order, storage);
+        int[] wordIds = new int[size];
+
+        for (int id = 0; id < size; id++) {
+            wordIds[id] = mapped.vocabulary.intern(kept[id] ? vocabulary.getWord(id) : TOKEN_UNKNOWN);
+        }
+
+        mapped.merge(this, wordIds);
+
+        Wordogram pruned = mapped.filterTransitions(options);
+
+        for (int id = 0; id < size; id++) {
+            wordIds[id] = kept[id] ? pruned.vocabulary.getId(vocabulary.getWord(id)) : -1;
+        }
+
+        pruned.names.merge(names, wordIds);
+
+        // the pruned tables are taken as they are, clearing would keep the old capacity
+        vocabulary = pruned.vocabulary;
+        names = pruned.names;
+        transitions = pruned.transitions;
+        contexts = pruned.contexts;
+        successorCounts = pruned.successorCounts;
+        contextSuccessorCounts = pruned.contextSuccessorCounts;
+        stateCount = pruned.stateCount;
+        delta = null;
+        history[0] = END_ID;
+        historySize = 1;
+    }
+
+    private void merge(Wordogram other, int[] wordIds) {
+        long[] contextKeys = new long[other.contexts.size()];
+        other.contexts.forEach((key, index) -> contextKeys[index - 1] = key);
+        int[] contextIds = new int[contextKeys.length];
+
+        // a state is always added after the shorter state it extends
+        for (int index = 0; index < contextKeys.length; index++) {
+            int state = LongIntHashMap.high(contextKeys[index]);
+            int olderWord = LongIntHashMap.low(contextKeys[index]);
+            contextIds[index] = getOrAddContext(toMergedState(state, wordIds, contextIds), wordIds[olderWord]);
+        }
+
+        other.transitions.forEach((key, count) -> addTransition(
+                toMergedState(LongIntHashMap.high(key), wordIds, contextIds),
+                wordIds[LongIntHashMap.low(key)], count));
+    }
+
+    /**
+     * Returns copy which keeps for every state only transitions allowed by the options
+     * and only words used by them.
+     */
+    private Wordogram filterTransitions(PruneOptions options) {
+        ChainModel model = toModel(vocabulary.toStringTable());
+        int size = vocabulary.size();
+        Wordogram pruned = new Wordogram(order, storage);
+        int[] wordIds = new int[size];
+        Arrays.fill(wordIds, -1);
+        long[] contextKeys = new long[contexts.size()];
+        contexts.forEach((key, index) -> contextKeys[index - 1] = key);
+        int[] contextIds = new int[contextKeys.length];
+        Arrays.fill(contextIds, -1);
+        long[] row = new long[16];
+
+        for (int state = 0; state < model.getStateCount(); state++) {
+            int count = 0;
+
+            for (int i = 0; i < model.getSuccessorCount(state); i++) {
+                int weight = model.getSuccessorWeight(state, i);
+
+                if (weight >= options.getMinCount()) {
+                    row = ensureCapacity(row, count);
+                    // the most frequent first, equal counts by word id
+                    row[count++] = LongIntHashMap.key(Integer.MAX_VALUE - weight, model.getSuccessor(state, i));
+                }
+            }
+
+            if (count == 0) {
+                continue;
+            }
+
+            if (options.getMaxSuccessors() > 0 && count > options.getMaxSuccessors()) {
+                Arrays.sort(row, 0, count);
+                count = options.getMaxSuccessors();
+            }
+
+            int prunedState = pruned.toPrunedState(state, size, contextKeys, contextIds, wordIds, this);
+
+            for (int i = 0; i < count; i++) {
+                int word = pruned.toPrunedWord(LongIntHashMap.low(row[i]), wordIds, this);
+                pruned.addTransition(prunedState, word, Integer.MAX_VALUE - LongIntHashMap.high(row[i]));
+            }
+        }
+
+        return pruned;
+    }
+
+    private int toPrunedState(int modelState, int wordCount, long[] contextKeys, int[] contextIds,
+                              int[] wordIds, Wordogram source) {
+        if (modelState < wordCount) {
+            return toPrunedWord(modelState, wordIds, source);
+        }
+
+        int index = modelState - wordCount;
+
+        if (contextIds[index] < 0) {
+            int state = LongIntHashMap.high(contextKeys[index]);
+            int shorterState = toPrunedState(toModelState(state, wordCount), wordCount, contextKeys, contextIds,
+                    wordIds, source);
+            contextIds[index] = getOrAddContext(shorterState,
+                    toPrunedWord(LongIntHashMap.low(contextKeys[index]), wordIds, source));
+        }
+
+        return contextIds[index];
+    }
+
+    private int toPrunedWord(int word, int[] wordIds, Wordogram source) {
+        if (wordIds[word] < 0) {
+            wordIds[word] = vocabulary.intern(source.vocabulary.getWord(word));
+        }
+
+        return wordIds[word];
+    }
+
+    /**
+     * Returns the most frequent words up to the limit, {@link #TOKEN_END} is always kept.
+     */
+    private static boolean[] selectWords(int[] frequencies, int maxVocabularySize) {
+        boolean[] kept = new boolean[frequencies.length];
+
+        if (maxVocabularySize == 0 || frequencies.length <= maxVocabularySize) {
+            Arrays.fill(kept, true);
+
+            return kept;
+        }
+
+        long[] ranks = new long[frequencies.length];
+
+        for (int id = 0; id < frequencies.length; id++) {
+            ranks[id] = LongIntHashMap.key(Integer.MAX_VALUE - frequencies[id], id);
+        }
+
+        Arrays.sort(ranks);
+        kept[END_ID] = true;
+        // one place is left for the unknown token
+        int count = 1;
+
+        for (int i = 0; i < ranks.length && count < maxVocabularySize - 1; i++) {
+            int id = LongIntHashMap.low(ranks[i]);
+
+            if (!kept[id]) {
+                kept[id] = true;
+                count++;
+            }
+        }
+
+        return kept;
+    }
+
+    /**
+     * Adds the word by its id in {@link #getVocabulary()}.
+     */
+    public void addNext(int word) {
+        addTransitions(history, historySize, word, 1);
+        pushHistory(word);
+    }
+
+    /**
+     * Adds the count to transitions to the word from every state made of the previous words,
+     * the most recent first, without touching the sentence continued by {@link #addNext(int)}.
+     * So a part of a chain can be trained by transitions routed from a wordogram elsewhere,
+     * the words must be interned in the same order in both vocabularies.
+     */
+    public void addTransitions(int[] history, int historySize, int word, int count) {
+        int state = history[0];
+        addTransition(state, word, count);
+        int depth = Math.min(historySize, order);
+
+        for (int i = 1; i < depth; i++) {
+            state = getOrAddContext(state, history[i]);
+            addTransition(state, word, count);
+        }
+    }
+
+    private void addTransition(int state, int word, int count) {
+        if (delta != null) {
+            delta.addTransition(state, word, count);
+
+            if (delta.size() > Math.max(MIN_DELTA_LIMIT, transitions.size() / MAX_DELTA_SHARE)) {
+                // copying most of the model costs less than keeping its changes
+                delta = null;
+            }
+        }
+
+        if (transitions.add(LongIntHashMap.key(state, word), count) == 0) {
+            if ((state & CONTEXT_FLAG) == 0) {
+                successorCounts = ensureCapacity(successorCounts, state);
+
+                if (successorCounts[state]++ == 0) {
+                    stateCount++;
+                }
+            } else {
+                int index = state & ~CONTEXT_FLAG;
+                contextSuccessorCounts = ensureCapacity(contextSuccessorCounts, index);
+                contextSuccessorCounts[index]++;
+            }
+        }
+    }
+
+    private int getOrAddContext(int state, int olderWord) {
+        long key = LongIntHashMap.key(state, olderWord);
+        int index = contexts.get(key);
+
+        if (index == 0) {
+            index = contexts.size() + 1;
+            contexts.put(key, index);
+
+            if (delta != null) {
+                delta.addContext(key);
+            }
+        }
+
+        return (index - 1) | CONTEXT_FLAG;
+    }
+
+    private void pushHistory(int word) {
+        historySize = pushHistory(history, historySize, order, word);
+    }
+
+    /**
+     * Puts the word in front of the previous words and returns new count of the previous words.
+     * States never cross sentence boundaries, so the end token drops older words.
+     */
+    public static int pushHistory(int[] history, int historySize, int order, int word) {
+        if (word == END_ID) {
+            history[0] = word;
+
+            return 1;
+        }
+
+        int size = Math.min(historySize + 1, order);
+        System.arraycopy(history, 0, history, 1, size - 1);
+        history[0] = word;
+
+        return size;
+    }
+
+    private static int toMergedState(int state, int[] wordIds, int[] contextIds) {
+        return (state & CONTEXT_FLAG) == 0 ? wordIds[state] : contextIds[state & ~CONTEXT_FLAG];
+    }
+
+    private static int toModelState(int state, int wordCount) {
+        return (state & CONTEXT_FLAG) == 0 ? state : wordCount + (state & ~CONTEXT_FLAG);
+    }
+
+    private static int countAt(int[] counts, int index) {
+        return index < counts.length ? counts[index] : 0;
+    }
+
+    private static int[] ensureCapacity(int[] array, int index) {
+        if (index >= array.length) {
+            return Arrays.copyOf(array, Math.max(index + 1, array.length << 1));
+        }
+
+        return array;
+    }
+
+    private static long[] ensureCapacity(long[] array, int index) {
+        if (index >= array.length) {
+            return Arrays.copyOf(array, Math.max(index + 1, array.length << 1));
+        }
+
+        return array;
     }
 }
@@ -0,0 +1,117 @@
+package io.arusland.text.server;
+
+import io.arusland.text.markov.GenerationOptions;
+import io.arusland.text.markov.Generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent generation requests into batches.
+ * <p>
+ * Requests wait in a bounded queue, every sampler thread takes all requests waiting at the moment
+ * (up to the batch size) and generates them with one {@link Generator#generate(List)} call.
+ * Under low load a batch is a single request, so nothing waits for a batch to fill up.
+ *
+ * @since 2026-10-18
+ */
+class GenerationBatcher {
+    private final Supplier<Generator> generators;
+    private final int maxBatchSize;
+    private final BlockingQueue<Request> queue;
+    private final List<Thread> samplers = new ArrayList<>();
+
+    /**
+     * Creates batcher which takes generator of the current model from the supplier for every batch.
+     */
+    GenerationBatcher(Supplier<Generator> generators, int samplerCount, int maxBatchSize, int queueCapacity) {
+        if (samplerCount < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Sampler count and batch size must be positive");
+        }
+
+        this.generators = generators;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        for (int i = 0; i < samplerCount; i++) {
+            Thread sampler = new Thread(this::sample, "sampler-" + i);
+            sampler.setDaemon(true);
+            samplers.add(sampler);
+        }
+    }
+
+    void start() {
+        samplers.forEach(Thread::start);
+    }
+
+    void stop() {
+        samplers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Queues the request, the returned future fails with {@link RejectedExecutionException}
+     * when the queue is full.
+     */
+    CompletableFuture<String> submit(GenerationOptions options) {
+        Request request = new Request(options);
+
+        if (!queue.offer(request)) {
+            request.result.completeExceptionally(new RejectedExecutionException("Too many requests"));
+        }
+
+        return request.result;
+    }
+
+    private void sample() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        List<GenerationOptions> options = new ArrayList<>(maxBatchSize);
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatchSize - 1);
+
+                for (Request request : batch) {
+                    options.add(request.options);
+                }
+
+                try {
+                    List<String> texts = generators.get().generate(options);
+
+                    for (int i = 0; i < batch.size(); i++) {
+                        batch.get(i).result.complete(texts.get(i));
+                    }
+                } catch (RuntimeException e) {
+                    for (Request request : batch) {
+                        request.result.completeExceptionally(e);
+                    }
+                }
+
+                batch.clear();
+                options.clear();
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+
+        queue.drainTo(batch);
+
+        for (Request request : batch) {
+            request.result.completeExceptionally(new RejectedExecutionException("Server is stopped"));
+        }
+    }
+
+    private static class Request {
+        private final GenerationOptions options;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private Request(GenerationOptions options) {
+            this.options = options;
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package io.arusland.text.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.arusland.text.markov.ChainModel;
+import io.arusland.text.markov.GenerationOptions;
+import io.arusland.text.markov.Generator;
+import io.arusland.text.markov.StatsIndex;
+import io.arusland.text.markov.Wordogram;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Embedded HTTP service generating texts from the current model.
+ * <p>
+ * Serves <code>GET /generate?max=&lt;chars&gt;[&amp;min=&lt;chars&gt;][&amp;first=&lt;word&gt;][&amp;smart=false]</code>
+ * returning a plain text, <code>GET /stats/&lt;word&gt;[?limit=&lt;n&gt;][&amp;offset=&lt;n&gt;]</code> returning JSON
+ * with the count of the word and a page of its most frequent next words and
+ * <code>GET /top[?limit=&lt;n&gt;][&amp;offset=&lt;n&gt;]</code> returning a page of the most frequent words.
+ * <p>
+ * Requests are handled by a bounded pool, when the pool and its queue are full the accepting
+ * thread handles the request itself, so the server slows down accepting instead of failing.
+ * Generation requests are coalesced by a {@link GenerationBatcher} into batches sampled in one pass.
+ * Statistics are read from the model and its {@link StatsIndex}, so they never wait for training.
+ *
+ * @since 2026-10-18
+ */
+public class GenerationServer {
+    public static final int DEFAULT_CHAR_COUNT_MAX = 140;
+    public static final int CHAR_COUNT_LIMIT = 100_000;
+    private static final int DEFAULT_STATS_LIMIT = 100;
+    private static final int HANDLERS_PER_SAMPLER = 8;
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final long REQUEST_TIMEOUT_MILLIS = 10_000;
+    private static final int STOP_DELAY_SECONDS = 1;
+    private final Supplier<ChainModel> models;
+    private final Supplier<Generator> generators;
+    private final int samplerCount;
+    private HttpServer server;
+    private ThreadPoolExecutor executor;
+    private GenerationBatcher batcher;
+
+    static {
+        // responses are written as headers and body, with Nagle's algorithm the body waits for a delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * Creates server of the model taken from the supplier on every request, so it follows
+     * a model which is retrained or reopened while serving.
+     *
+     * @param samplerCount count of threads generating texts
+     */
+    public GenerationServer(Supplier<ChainModel> models, int samplerCount) {
+        this(models, followModels(models), samplerCount);
+    }
+
+    /**
+     * Creates server which generates texts by the generator taken from the supplier for every batch,
+     * e.g. one with secure randoms, the generator should follow the model of the model supplier.
+     *
+     * @param samplerCount count of threads generating texts
+     */
+    public GenerationServer(Supplier<ChainModel> models, Supplier<Generator> generators, int samplerCount) {
+        if (samplerCount < 1) {
+            throw new IllegalArgumentException("Sampler count must be positive: " + samplerCount);
+        }
+
+        this.models = models;
+        this.generators = generators;
+        this.samplerCount = samplerCount;
+    }
+
+    /**
+     * Starts listening on the port, 0 means any free port.
+     */
+    public synchronized void start(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Server is already started");
+        }
+
+        int handlerCount = samplerCount * HANDLERS_PER_SAMPLER;
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(handlerCount, handlerCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "http-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        batcher = new GenerationBatcher(generators, samplerCount, MAX_BATCH_SIZE, QUEUE_CAPACITY);
+        batcher.start();
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/generate", exchange -> handle(exchange, this::generate));
+        server.createContext("/stats/", exchange -> handle(exchange, this::stats));
+        server.createContext("/top", exchange -> handle(exchange, this::top));
+        server.start();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(STOP_DELAY_SECONDS);
+            batcher.stop();
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    public synchronized boolean isStarted() {
+        return server != null;
+    }
+
+    /**
+     * Returns port the server listens on.
+     */
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("Server is not started");
+        }
+
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns supplier of a generator of the current model, which is created anew when the model changes.
+     */
+    private static Supplier<Generator> followModels(Supplier<ChainModel> models) {
+        AtomicReference<Generator> generator = new AtomicReference<>();
+
+        return () -> {
+            ChainModel model = models.get();
+            Generator current = generator.get();
+
+            if (current == null || current.getModel() != model) {
+                current = new Generator(model);
+                generator.set(current);
+            }
+
+            return current;
+        };
+    }
+
+    private Response generate(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        int charCountMax = parseInt(params.get("max"), DEFAULT_CHAR_COUNT_MAX);
+
+        if (charCountMax < 1 || charCountMax > CHAR_COUNT_LIMIT) {
+            return Response.text(400, "Parameter 'max' must be in range 1.." + CHAR_COUNT_LIMIT);
+        }
+
+        int charCountMin = parseInt(params.get("min"), 0);
+
+        if (charCountMin < 0 || charCountMin > charCountMax) {
+            return Response.text(400, "Parameter 'min' must be in range 0.." + charCountMax);
+        }
+
+        GenerationOptions options = new GenerationOptions(charCountMax, params.get("first"),
+                !"false".equals(params.get("smart"))).withCharCountMin(charCountMin);
+
+        try {
+            return Response.text(200, batcher.submit(options).get(REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return Response.text(503, "Server is stopping");
+        } catch (TimeoutException e) {
+            return Response.text(503, "Server is busy");
+        } catch (ExecutionException e) {
+            // a full queue rejects the request, any other failure is an error of generation
+            if (e.getCause() instanceof RejectedExecutionException) {
+                return Response.text(503, e.getCause().getMessage());
+            }
+
+            return Response.text(500, "Generation failed: " + e.getCause());
+        }
+    }
+
+    private Response stats(HttpExchange exchange) {
+        String word = exchange.getRequestURI().getPath().substring("/stats/".length());
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        int limit = parseInt(params.get("limit"), DEFAULT_STATS_LIMIT);
+        int offset = Math.max(parseInt(params.get("offset"), 0), 0);
+        ChainModel model = models.get();
+        int id = StringUtils.isBlank(word) ? -1 : model.getSeedIndex().find(word);
+
+        if (id < 0) {
+            return Response.text(404, "Unknown word: " + word);
+        }
+
+        String form = model.getWord(id);
+        StringBuilder json = new StringBuilder();
+        json.append("{\"word\":");
+        appendString(json, form);
+        StatsIndex index = model.getStatsIndex();
+        json.append(",\"count\":").append(index.getCount(id));
+        json.append(",\"nextCount\":").append(model.getSuccessorCount(id));
+        json.append(",\"next\":[");
+
+        int end = Math.min(model.getSuccessorCount(id), offset + Math.max(limit, 0));
+
+        for (int pos = offset; pos < end; pos++) {
+            int successor = index.getSuccessorIndex(id, pos);
+            String nextWord = model.getWord(model.getSuccessor(id, successor));
+
+            if (pos > offset) {
+                json.append(',');
+            }
+
+            json.append("{\"word\":");
+            appendString(json, Wordogram.TOKEN_END.equals(nextWord) ? "<END>" : nextWord);
+            json.append(",\"count\":").append(model.getSuccessorWeight(id, successor)).append('}');
+        }
+
+        json.append("]}");
+
+        return new Response(200, "application/json; charset=utf-8", json.toString());
+    }
+
+    private Response top(HttpExchange exchange) {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        int limit = parseInt(params.get("limit"), DEFAULT_STATS_LIMIT);
+        int offset = Math.max(parseInt(params.get("offset"), 0), 0);
+        ChainModel model = models.get();
+        StatsIndex index = model.getStatsIndex();
+        int end = Math.min(index.size(), offset + Math.max(limit, 0));
+        StringBuilder json = new StringBuilder();
+        json.append("{\"wordCount\":").append(index.size()).append(",\"words\":[");
+
+        for (int rank = offset; rank < end; rank++) {
+            int id = index.getWord(rank);
+
+            if (rank > offset) {
+                json.append(',');
+            }
+
+            json.append("{\"word\":");
+            appendString(json, model.getWord(id));
+            json.append(",\"count\":").append(index.getCount(id)).append('}');
+        }
+
+        json.append("]}");
+
+        return new Response(200, "application/json; charset=utf-8", json.toString());
+    }
+
+    private static void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            Response response;
+
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                response = Response.text(405, "Only GET is supported");
+            } else {
+                try {
+                    response = handler.handle(exchange);
+                } catch (IllegalArgumentException e) {
+                    response = Response.text(400, e.getMessage());
+                }
+            }
+
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", response.contentType);
+            exchange.sendResponseHeaders(response.status, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+
+        if (query == null) {
+            return params;
+        }
+
+        for (String param : query.split("&")) {
+            int eq = param.indexOf('=');
+
+            if (eq > 0) {
+                params.put(decode(param.substring(0, eq)), decode(param.substring(eq + 1)));
+            }
+        }
+
+        return params;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number: " + value);
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+
+            if (ch == '"' || ch == '\\') {
+                json.append('\\').append(ch);
+            } else if (ch < 0x20) {
+                json.append(String.format("\\u%04x", (int) ch));
+            } else {
+                json.append(ch);
+            }
+        }
+
+        json.append('"');
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static class Response {
+        private final int status;
+        private final String contentType;
+        private final String body;
+
+        private Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        private static Response text(int status, String body) {
+            return new Response(status, "text/plain; charset=utf-8", body);
+        }
+    }
+}
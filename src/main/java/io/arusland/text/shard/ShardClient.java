@@ -0,0 +1,114 @@
+package io.arusland.text.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection of a {@link ShardedModel} to one {@link ShardWorker}, requests are buffered
+ * till {@link #flush()} or a request waiting for an answer.
+ *
+ * @since 2026-10-18
+ */
+class ShardClient implements Closeable {
+    private static final long EXIT_TIMEOUT_SECONDS = 5;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    /**
+     * Process of a local worker or null.
+     */
+    private final Process process;
+
+    ShardClient(InetSocketAddress address, Process process) throws IOException {
+        this.process = process;
+        this.socket = new Socket(address.getAddress(), address.getPort());
+
+        try {
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), ShardProtocol.BUFFER_SIZE));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), ShardProtocol.BUFFER_SIZE));
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    void sendWord(String word) throws IOException {
+        out.write(ShardProtocol.WORD);
+        out.writeUTF(word);
+    }
+
+    void sendTransition(int[] history, int historySize, int word, int count) throws IOException {
+        out.write(ShardProtocol.ADD);
+        writeHistory(history, historySize);
+        out.writeInt(word);
+        out.writeInt(count);
+    }
+
+    /**
+     * Sends compile request, its answer is taken by {@link #readInt()}.
+     */
+    void sendCompile() throws IOException {
+        out.write(ShardProtocol.COMPILE);
+        out.flush();
+    }
+
+    /**
+     * Starts next words request of the count of queries, which are written by {@link #writeQuery}.
+     */
+    void beginNext(int count) throws IOException {
+        out.write(ShardProtocol.NEXT);
+        out.writeInt(count);
+    }
+
+    void writeQuery(boolean smart, int[] history, int historySize) throws IOException {
+        out.writeBoolean(smart);
+        writeHistory(history, historySize);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    int readInt() throws IOException {
+        return in.readInt();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write(ShardProtocol.CLOSE);
+            out.flush();
+        } catch (IOException e) {
+            // the worker is gone already
+        } finally {
+            socket.close();
+        }
+
+        if (process != null) {
+            try {
+                if (!process.waitFor(EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeHistory(int[] history, int historySize) throws IOException {
+        out.write(historySize);
+
+        for (int i = 0; i < historySize; i++) {
+            out.writeInt(history[i]);
+        }
+    }
+}
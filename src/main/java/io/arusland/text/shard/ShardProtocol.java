@@ -0,0 +1,50 @@
+package io.arusland.text.shard;
+
+/**
+ * Binary protocol between a {@link ShardedModel} and its {@link ShardWorker}s.
+ * <p>
+ * A request is an operation byte followed by its arguments written by {@link java.io.DataOutputStream},
+ * only compile and next requests are answered. Histories are sent as a byte count of words
+ * followed by word ids, the most recent first.
+ *
+ * @since 2026-10-18
+ */
+final class ShardProtocol {
+    /**
+     * Printed by a worker process with its port when it is ready to accept the coordinator.
+     */
+    static final String READY = "LISTENING ";
+    static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Ends the session, the worker exits.
+     */
+    static final int CLOSE = 0;
+    /**
+     * UTF word: interns the next word, all shards intern words in the same order, so ids are global.
+     */
+    static final int WORD = 1;
+    /**
+     * History, int next word id, int count: adds transitions from the states of the history.
+     */
+    static final int ADD = 2;
+    /**
+     * Compiles the model of the shard, answered by int count of its states which have next words.
+     */
+    static final int COMPILE = 3;
+    /**
+     * Int count of queries, then per query a boolean smart flag and a history:
+     * answered by int id of a drawn next word per query or -1 if the state has no next words.
+     */
+    static final int NEXT = 4;
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * Returns shard owning the states whose most recent word is the word, so all states ending
+     * with a word are in one shard and backing off to a shorter state needs no other shard.
+     */
+    static int owner(int word, int shardCount) {
+        return Integer.remainderUnsigned(word * 0x9E3779B9, shardCount);
+    }
+}
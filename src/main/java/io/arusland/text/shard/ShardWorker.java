@@ -0,0 +1,134 @@
+package io.arusland.text.shard;
+
+import io.arusland.text.markov.ChainModel;
+import io.arusland.text.markov.Wordogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+
+/**
+ * Shard of a {@link ShardedModel}: trains the transitions routed to it into its own wordogram
+ * and draws next words of its states.
+ * <p>
+ * A worker is a process serving one coordinator over a local socket:
+ * <pre>
+ * java -cp markov.jar io.arusland.text.shard.ShardWorker &lt;order&gt; [port]
+ * </pre>
+ * It prints "LISTENING &lt;port&gt;" when ready (any free port when the port is 0 or omitted)
+ * and exits when the coordinator disconnects.
+ *
+ * @since 2026-10-18
+ */
+public final class ShardWorker {
+    private final Wordogram wordogram;
+    private final Random random = new Random();
+    private final int[] history = new int[Wordogram.MAX_ORDER];
+    private ChainModel model;
+
+    public ShardWorker(int order) {
+        this.wordogram = new Wordogram(order);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ShardWorker <order> [port]");
+            System.exit(1);
+        }
+
+        int order = Integer.parseInt(args[0]);
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+
+        try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            System.out.println(ShardProtocol.READY + server.getLocalPort());
+            System.out.flush();
+
+            try (Socket socket = server.accept()) {
+                socket.setTcpNoDelay(true);
+                new ShardWorker(order).serve(socket.getInputStream(), socket.getOutputStream());
+            }
+        }
+    }
+
+    /**
+     * Handles requests of the coordinator till it closes the session or the stream ends.
+     */
+    public void serve(InputStream input, OutputStream output) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, ShardProtocol.BUFFER_SIZE));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, ShardProtocol.BUFFER_SIZE));
+
+        while (true) {
+            int operation = in.read();
+
+            switch (operation) {
+                case -1:
+                case ShardProtocol.CLOSE:
+                    return;
+                case ShardProtocol.WORD:
+                    wordogram.getVocabulary().intern(in.readUTF());
+                    break;
+                case ShardProtocol.ADD:
+                    int historySize = readHistory(in);
+                    wordogram.addTransitions(history, historySize, in.readInt(), in.readInt());
+                    break;
+                case ShardProtocol.COMPILE:
+                    model = wordogram.toModel();
+                    out.writeInt(wordogram.getStateCount() + wordogram.getContextCount());
+                    out.flush();
+                    break;
+                case ShardProtocol.NEXT:
+                    next(in, out);
+                    break;
+                default:
+                    throw new IOException("Unknown operation: " + operation);
+            }
+        }
+    }
+
+    private void next(DataInputStream in, DataOutputStream out) throws IOException {
+        int count = in.readInt();
+        int[] nextIds = new int[count];
+
+        // all queries are read before answering, so the coordinator can write to other shards meanwhile
+        for (int i = 0; i < count; i++) {
+            boolean smart = in.readBoolean();
+            int historySize = readHistory(in);
+
+            if (model == null || history[0] >= model.size()) {
+                // a word interned after the model was compiled has no state in it
+                nextIds[i] = -1;
+            } else {
+                int state = model.findState(history, historySize);
+                nextIds[i] = smart ? model.nextWeighted(state, random) : model.nextUniform(state, random);
+            }
+        }
+
+        for (int nextId : nextIds) {
+            out.writeInt(nextId);
+        }
+
+        out.flush();
+    }
+
+    private int readHistory(DataInputStream in) throws IOException {
+        int size = in.readUnsignedByte();
+
+        if (size < 1 || size > history.length) {
+            throw new IOException("Invalid history size: " + size);
+        }
+
+        for (int i = 0; i < size; i++) {
+            history[i] = in.readInt();
+        }
+
+        return size;
+    }
+}
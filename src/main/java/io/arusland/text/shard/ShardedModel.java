@@ -0,0 +1,391 @@
+package io.arusland.text.shard;
+
+import io.arusland.text.markov.GenerationOptions;
+import io.arusland.text.markov.Storage;
+import io.arusland.text.markov.Vocabulary;
+import io.arusland.text.markov.Wordogram;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chain whose states are partitioned across {@link ShardWorker} processes, so its size is not limited
+ * by the memory of one JVM.
+ * <p>
+ * A state belongs to the shard chosen by hash of its most recent word. Training routes every transition
+ * to the shard of its state, the shard keeps all longer states ending with the same word, so it backs off
+ * to shorter states by itself. The vocabulary is kept here and every new word is sent to all shards,
+ * which intern it in the same order, so word ids are the same everywhere.
+ * <p>
+ * Texts are generated in batches walked in lockstep: every step sends next word queries of all texts
+ * to their shards at once and reads the answers after that, so the shards work in parallel and a batch
+ * takes one round trip per word instead of one per word of every text.
+ * <p>
+ * The model is not thread safe.
+ *
+ * @since 2026-10-18
+ */
+public final class ShardedModel implements Closeable {
+    /**
+     * Stands for a first word unknown to the model.
+     */
+    private static final int SEED_ID = Integer.MAX_VALUE;
+    private final int order;
+    private final ShardClient[] shards;
+    private final Vocabulary vocabulary = new Vocabulary();
+    private final int[] history = new int[Wordogram.MAX_ORDER];
+    private int historySize;
+    private long transitionCount;
+    /**
+     * Count of words the compiled models of the shards know, words added later are unknown to generation.
+     */
+    private int compiledSize;
+
+    private ShardedModel(int order, List<ShardClient> shards) {
+        if (order < 1 || order > Wordogram.MAX_ORDER) {
+            throw new IllegalArgumentException("Order must be in range 1.." + Wordogram.MAX_ORDER + ": " + order);
+        }
+
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+
+        this.order = order;
+        this.shards = shards.toArray(new ShardClient[0]);
+        // interned by every worker on start
+        history[0] = vocabulary.intern(Wordogram.TOKEN_END);
+        historySize = 1;
+    }
+
+    /**
+     * Connects to workers started with the same order, the workers must be new.
+     */
+    public static ShardedModel connect(int order, List<InetSocketAddress> addresses) throws IOException {
+        List<ShardClient> clients = new ArrayList<>();
+
+        try {
+            for (InetSocketAddress address : addresses) {
+                clients.add(new ShardClient(address, null));
+            }
+        } catch (IOException e) {
+            closeAll(clients);
+            throw e;
+        }
+
+        return new ShardedModel(order, clients);
+    }
+
+    /**
+     * Starts the count of worker processes on this host with the class path of this JVM and connects to them,
+     * the workers exit when the model is closed.
+     *
+     * @param jvmOptions options of the worker JVMs, e.g. the max heap size
+     */
+    public static ShardedModel startLocal(int shardCount, int order, String... jvmOptions) throws IOException {
+        List<Process> processes = new ArrayList<>();
+        List<ShardClient> clients = new ArrayList<>();
+
+        try {
+            // all workers start at once, then their ports are read
+            for (int i = 0; i < shardCount; i++) {
+                processes.add(startWorker(order, jvmOptions));
+            }
+
+            for (Process process : processes) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                        StandardCharsets.UTF_8));
+                String line = reader.readLine();
+
+                if (line == null || !line.startsWith(ShardProtocol.READY)) {
+                    throw new IOException("Shard worker did not start: " + line);
+                }
+
+                int port = Integer.parseInt(line.substring(ShardProtocol.READY.length()).trim());
+                clients.add(new ShardClient(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), process));
+            }
+        } catch (IOException | RuntimeException e) {
+            closeAll(clients);
+            processes.forEach(Process::destroyForcibly);
+            throw e;
+        }
+
+        return new ShardedModel(order, clients);
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns count of distinct words including the end of sentence.
+     */
+    public int size() {
+        return vocabulary.size();
+    }
+
+    /**
+     * Returns count of transitions sent to the shards, repeated transitions are counted every time.
+     */
+    public long getTransitionCount() {
+        return transitionCount;
+    }
+
+    /**
+     * Adds the next word of the text like {@link Wordogram#addNext(String)}.
+     */
+    public void addNext(String word) throws IOException {
+        int size = vocabulary.size();
+        int id = vocabulary.intern(word);
+
+        if (id == size) {
+            for (ShardClient shard : shards) {
+                shard.sendWord(word);
+            }
+        }
+
+        shards[ShardProtocol.owner(history[0], shards.length)].sendTransition(history, historySize, id, 1);
+        transitionCount++;
+        historySize = Wordogram.pushHistory(history, historySize, order, id);
+    }
+
+    public void addEndWord() throws IOException {
+        addNext(Wordogram.TOKEN_END);
+    }
+
+    /**
+     * Compiles models of all shards from the words added so far, texts are generated from the compiled models
+     * only. Returns total count of states which have next words.
+     */
+    public long compile() throws IOException {
+        for (ShardClient shard : shards) {
+            shard.sendCompile();
+        }
+
+        long states = 0;
+
+        for (ShardClient shard : shards) {
+            states += shard.readInt();
+        }
+
+        compiledSize = vocabulary.size();
+
+        return states;
+    }
+
+    public String generate(GenerationOptions options) throws IOException {
+        return generate(Collections.singletonList(options)).get(0);
+    }
+
+    /**
+     * Generates a text for each of the options walking all of them in lockstep. First words are looked up
+     * as written or in lower case, an unknown first word starts the text which goes on like a new sentence.
+     * Words added after the last {@link #compile()} are unknown.
+     * Texts are joined by spaces and periods, without commas and capitalized names
+     * of {@link io.arusland.text.markov.Generator}.
+     */
+    public List<String> generate(List<GenerationOptions> batch) throws IOException {
+        List<Walk> walks = new ArrayList<>(batch.size());
+
+        for (GenerationOptions options : batch) {
+            walks.add(startWalk(options));
+        }
+
+        int[] queryCounts = new int[shards.length];
+        List<Walk> active = new ArrayList<>(walks.size());
+
+        for (Walk walk : walks) {
+            if (!walk.done) {
+                active.add(walk);
+            }
+        }
+
+        while (!active.isEmpty()) {
+            Arrays.fill(queryCounts, 0);
+
+            for (Walk walk : active) {
+                queryCounts[walk.shard()]++;
+            }
+
+            for (int shard = 0; shard < shards.length; shard++) {
+                if (queryCounts[shard] > 0) {
+                    shards[shard].beginNext(queryCounts[shard]);
+                }
+            }
+
+            for (Walk walk : active) {
+                shards[walk.shard()].writeQuery(walk.options.isSmartNextWord(), walk.history, walk.historySize);
+            }
+
+            for (int shard = 0; shard < shards.length; shard++) {
+                if (queryCounts[shard] > 0) {
+                    shards[shard].flush();
+                }
+            }
+
+            // answers of a shard come in the order of its queries
+            List<Walk> next = new ArrayList<>(active.size());
+
+            for (Walk walk : active) {
+                int nextId = shards[walk.shard()].readInt();
+
+                if (nextId >= 0 && walk.append(nextId)) {
+                    next.add(walk);
+                }
+            }
+
+            active = next;
+        }
+
+        List<String> texts = new ArrayList<>(walks.size());
+
+        for (Walk walk : walks) {
+            texts.add(walk.finish());
+        }
+
+        return texts;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeAll(Arrays.asList(shards));
+    }
+
+    private Walk startWalk(GenerationOptions options) {
+        Walk walk = new Walk(options);
+        String firstWord = options.getFirstWord();
+
+        if (StringUtils.isBlank(firstWord)) {
+            return walk;
+        }
+
+        int id = vocabulary.getId(firstWord);
+
+        if (id < 0) {
+            id = vocabulary.getId(firstWord.toLowerCase());
+        }
+
+        if (id > 0 && id < compiledSize) {
+            walk.done = !walk.append(id);
+        } else if (firstWord.length() <= options.getCharCountMax()) {
+            // the model knows nothing about the word, so the text goes on like a new sentence after it
+            walk.text.append(StringUtils.capitalize(firstWord));
+            walk.prevId = SEED_ID;
+        } else {
+            walk.done = true;
+        }
+
+        return walk;
+    }
+
+    private static Process startWorker(int order, String[] jvmOptions) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        Collections.addAll(command, jvmOptions);
+
+        String storage = System.getProperty(Storage.PROPERTY);
+
+        if (storage != null) {
+            command.add("-D" + Storage.PROPERTY + "=" + storage);
+        }
+
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add(String.valueOf(order));
+
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    private static void closeAll(List<ShardClient> clients) throws IOException {
+        IOException error = null;
+
+        for (ShardClient client : clients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Text being generated and the state of its chain.
+     */
+    private final class Walk {
+        final GenerationOptions options;
+        final StringBuilder text;
+        final int[] history = new int[order];
+        int historySize;
+        int prevId = -1;
+        /**
+         * True if the text cannot go on from the start.
+         */
+        boolean done;
+
+        Walk(GenerationOptions options) {
+            this.options = options;
+            this.text = new StringBuilder(options.getCharCountMax());
+            history[0] = Wordogram.END_ID;
+            historySize = 1;
+        }
+
+        int shard() {
+            return ShardProtocol.owner(history[0], shards.length);
+        }
+
+        /**
+         * Appends the word and returns true or returns false if it does not fit.
+         */
+        boolean append(int id) {
+            String word = vocabulary.getWord(id);
+            int separator = prevId >= 0 && id != Wordogram.END_ID ? 1 : 0;
+
+            if (text.length() + separator + word.length() > options.getCharCountMax()) {
+                return false;
+            }
+
+            if (separator > 0) {
+                text.append(' ');
+            }
+
+            int start = text.length();
+            text.append(word);
+
+            if (prevId == Wordogram.END_ID || start == 0) {
+                text.setCharAt(start, Character.toTitleCase(text.charAt(start)));
+            }
+
+            prevId = id;
+            historySize = Wordogram.pushHistory(history, historySize, order, id);
+
+            return true;
+        }
+
+        String finish() {
+            if (prevId >= 0 && prevId != Wordogram.END_ID && text.length() < options.getCharCountMax()) {
+                text.append(Wordogram.TOKEN_END);
+            }
+
+            return text.toString();
+        }
+    }
+}
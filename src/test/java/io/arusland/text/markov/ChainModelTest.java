@@ -0,0 +1,74 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class ChainModelTest {
+    @Test
+    public void testWeightedDistribution() {
+        Map<String, Integer> next = new HashMap<>();
+        next.put("а", 1);
+        next.put("б", 3);
+        next.put("в", 6);
+        Map<String, Map<String, Integer>> words = new HashMap<>();
+        words.put("и", next);
+
+        ChainModel model = ChainModel.compile(words);
+        Random random = new Random(42);
+        int id = model.getId("и");
+        int[] hits = new int[model.size()];
+        int draws = 100000;
+
+        for (int i = 0; i < draws; i++) {
+            hits[model.nextWeighted(id, random)]++;
+        }
+
+        assertEquals(0.1, hits[model.getId("а")] / (double) draws, 0.01);
+        assertEquals(0.3, hits[model.getId("б")] / (double) draws, 0.01);
+        assertEquals(0.6, hits[model.getId("в")] / (double) draws, 0.01);
+    }
+
+    @Test
+    public void testTransitionWeight() {
+        Map<String, Integer> next = new HashMap<>();
+        next.put("в", 6);
+        next.put("а", 1);
+        next.put("б", 3);
+        Map<String, Map<String, Integer>> words = new HashMap<>();
+        words.put("и", next);
+
+        ChainModel model = ChainModel.compile(words);
+        int id = model.getId("и");
+
+        for (Map.Entry<String, Integer> entry : next.entrySet()) {
+            assertEquals((int) entry.getValue(), model.getTransitionWeight(id, model.getId(entry.getKey())));
+        }
+
+        assertEquals(0, model.getTransitionWeight(id, id));
+        assertEquals(0, model.getTransitionWeight(model.getId("а"), id));
+    }
+
+    @Test
+    public void testWordWithoutSuccessors() {
+        Map<String, Map<String, Integer>> words = new HashMap<>();
+        words.put("и", new HashMap<>());
+        words.get("и").put("я", 2);
+
+        ChainModel model = ChainModel.compile(words);
+        Random random = new Random(42);
+
+        assertEquals(model.getId("я"), model.nextUniform(model.getId("и"), random));
+        assertEquals(-1, model.nextWeighted(model.getId("я"), random));
+        assertEquals(-1, model.nextUniform(model.getId("я"), random));
+        assertTrue(model.getId("нет") < 0);
+    }
+}
@@ -0,0 +1,127 @@
+package io.arusland.text.markov;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @since 2026-10-18
+ */
+public class CorpusLoaderTest {
+    private static final String[] WORDS = {"цепь", "Маркова", "последовательность", "случайных", "событий",
+            "с", "конечным", "или", "счётным", "числом", "исходов", "Москва", "москва", "и", "в", "Андрей"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParallelEqualsSequential() throws IOException {
+        File dir = folder.newFolder("texts");
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20; i++) {
+            StringBuilder sb = new StringBuilder();
+
+            for (int j = 0; j < 500; j++) {
+                sb.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextInt(8) == 0 ? ". " : " ");
+            }
+
+            Files.write(new File(dir, "text" + i + ".txt").toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Path> files = CorpusLoader.listFiles(dir.getPath() + "/*.txt");
+        assertEquals(20, files.size());
+        assertEquals(files, CorpusLoader.listFiles(dir.getPath()));
+
+        Wordogram expected = new Wordogram(2);
+        new CorpusLoader(new WordParser(), 1).load(files, expected);
+
+        Wordogram actual = new Wordogram(2);
+        new CorpusLoader(new WordParser(), 4).load(files, actual);
+
+        Map<String, String> names = actual.getNames().toNameMap(actual.getVocabulary());
+        assertEquals(expected.getNames().toNameMap(expected.getVocabulary()), names);
+        assertEquals(expected.getNames().toCountMap(expected.getVocabulary()),
+                actual.getNames().toCountMap(actual.getVocabulary()));
+        assertEquals("Маркова", names.get("маркова"));
+        assertEquals(expected.getWords(), actual.getWords());
+        assertEquals(expected.getContextCount(), actual.getContextCount());
+
+        // parts are merged into an off-heap wordogram from the same storage
+        Wordogram offHeap = new Wordogram(2, Storage.OFF_HEAP);
+        new CorpusLoader(new WordParser(), 4).load(files, offHeap);
+        assertEquals(expected.getWords(), offHeap.getWords());
+        assertEquals(expected.getContextCount(), offHeap.getContextCount());
+
+        ChainModel expectedModel = expected.toModel();
+        ChainModel model = actual.toModel();
+
+        assertEquals(expectedModel.getStateCount(), model.getStateCount());
+
+        for (int state = 0; state < model.getStateCount(); state++) {
+            assertEquals(expectedModel.getSuccessorCount(state), model.getSuccessorCount(state));
+
+            for (int i = 0; i < model.getSuccessorCount(state); i++) {
+                assertEquals(expectedModel.getSuccessor(state, i), model.getSuccessor(state, i));
+                assertEquals(expectedModel.getSuccessorWeight(state, i), model.getSuccessorWeight(state, i));
+            }
+        }
+
+        for (int id = 0; id < model.size(); id++) {
+            assertEquals(expectedModel.getWord(id), model.getWord(id));
+        }
+    }
+
+    @Test
+    public void testDeduplicationInFileOrder() throws IOException {
+        File dir = folder.newFolder("dedup");
+        // the sentence is repeated by every file, written differently in each of them
+        String[] sentences = {"Андрей Марков изучал цепь случайных событий. ",
+                "андрей марков изучал цепь случайных событий. ", "АНДРЕЙ МАРКОВ изучал цепь случайных событий. "};
+
+        for (int i = 0; i < 12; i++) {
+            Files.write(new File(dir, "text" + (char) ('a' + i) + ".txt").toPath(),
+                    ("Файл " + WORDS[i] + " " + i + ". " + sentences[i % 3] + "Конец файла " + WORDS[i] + ". ")
+                            .getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<Path> files = CorpusLoader.listFiles(dir.getPath());
+        WordParser sequential = new WordParser();
+        sequential.setSentenceFilter(new SentenceFilter(1 << 16, 3));
+        Wordogram expected = new Wordogram(2);
+
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                sequential.parse(channel, expected);
+            }
+        }
+
+        WordParser parser = new WordParser();
+        parser.setSentenceFilter(new SentenceFilter(1 << 16, 3));
+        CorpusLoader loader = new CorpusLoader(parser, 4);
+        Wordogram actual = new Wordogram(2);
+        loader.load(files, actual);
+
+        assertEquals(1, loader.getThreadCount(files.size()));
+        assertEquals(11, parser.getSentenceFilter().getSkippedSentences());
+        assertEquals(expected.getNames().toCountMap(expected.getVocabulary()),
+                actual.getNames().toCountMap(actual.getVocabulary()));
+        assertEquals(expected.getNames().toNameMap(expected.getVocabulary()),
+                actual.getNames().toNameMap(actual.getVocabulary()));
+        assertEquals(expected.getWords(), actual.getWords());
+        assertEquals(4, new CorpusLoader(new WordParser(), 4).getThreadCount(files.size()));
+    }
+}
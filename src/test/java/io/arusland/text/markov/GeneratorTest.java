@@ -0,0 +1,213 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class GeneratorTest {
+    private static final String[] WORDS = {"цепь", "маркова", "последовательность", "случайных", "событий",
+            "с", "конечным", "или", "счётным", "числом", "исходов", "москва", "и", "в", "андрей", "но", "когда"};
+    private static final int THREAD_COUNT = 4;
+    private static final int TEXT_COUNT = 500;
+
+    @Test
+    public void testOptions() {
+        Generator generator = new Generator(createModel(1));
+
+        String text = generator.generate(new GenerationOptions(300, "маркова", false));
+
+        assertTrue(text.startsWith("Маркова"));
+        assertTrue(text.length() <= 300);
+    }
+
+    @Test
+    public void testFirstWord() {
+        Generator generator = new Generator(createModel(2));
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(generator.generate(new GenerationOptions(100, "МАРКОВА", true)).startsWith("Маркова"));
+
+            String text = generator.generate(new GenerationOptions(100, "пос*", i % 2 == 0));
+            assertTrue(text.startsWith("Последовательность"));
+        }
+
+        // an unknown word starts the text which goes on like a new sentence
+        String text = generator.generate(new GenerationOptions(100, "Колмогоров", true));
+
+        // a comma or the end of sentence may follow it
+        assertTrue(text, text.matches("Колмогоров\\P{L}.*"));
+        assertTrue(text.length() > "Колмогоров ".length() + 10);
+        assertEquals("", generator.generate(new GenerationOptions(5, "Колмогоров", true)));
+    }
+
+    @Test
+    public void testLengthWindow() {
+        for (int order = 1; order <= 3; order += 2) {
+            Generator generator = new Generator(createModel(order));
+
+            for (int i = 0; i < 1000; i++) {
+                int min = 20 + i % 100;
+                String text = generator.generate(new GenerationOptions(min + 10, i % 3 == 0 ? "маркова" : null,
+                        i % 2 == 0).withCharCountMin(min));
+
+                assertTrue(text, text.length() >= min && text.length() <= min + 10);
+                assertTrue(text.endsWith("."));
+            }
+        }
+    }
+
+    @Test
+    public void testGenerateAround() {
+        Generator generator = new Generator(createModel(2));
+        int starts = 0;
+
+        for (int i = 0; i < 200; i++) {
+            String text = generator.generateAround(new GenerationOptions(120, "случайных событий", i % 2 == 0));
+
+            assertTrue(text.toLowerCase().contains("случайных событий"));
+            assertTrue(text.length() <= 120);
+
+            if (text.startsWith("Случайных")) {
+                starts++;
+            }
+        }
+
+        // words are drawn to the left of the seed as well
+        assertTrue(starts < 100);
+        assertTrue(generator.generateAround(new GenerationOptions(100, "Колмогоров", true)).startsWith("Колмогоров"));
+    }
+
+    @Test
+    public void testGenerateBatch() throws IOException {
+        ChainModel model = createModel(2);
+        GenerationOptions options = new GenerationOptions(140);
+        Random random = new Random(3);
+        Generator generator = new Generator(model, () -> random);
+        StringWriter writer = new StringWriter();
+
+        generator.generateBatch(options, 500, writer);
+
+        Random expectedRandom = new Random(3);
+        Generator expectedGenerator = new Generator(model, () -> expectedRandom);
+        StringBuilder expected = new StringBuilder();
+
+        for (int i = 0; i < 500; i++) {
+            expected.append(expectedGenerator.generate(options)).append('\n');
+        }
+
+        assertEquals(expected.toString(), writer.toString());
+
+        StringWriter parallelWriter = new StringWriter();
+        new Generator(model).generateBatch(options.withFirstWord("Маркова"), 10001, 4, parallelWriter);
+        String[] lines = parallelWriter.toString().split("\n");
+
+        assertEquals(10001, lines.length);
+
+        for (String line : lines) {
+            assertTrue(line.startsWith("Маркова") && line.length() <= 140);
+        }
+
+        List<GenerationOptions> batch = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            batch.add(new GenerationOptions(20 + i, i % 2 == 0 ? "маркова" : null, i % 3 != 0));
+        }
+
+        Random batchRandom = new Random(5);
+        Random singleRandom = new Random(5);
+        Generator singleGenerator = new Generator(model, () -> singleRandom);
+        List<String> texts = new Generator(model, () -> batchRandom).generate(batch);
+
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(singleGenerator.generate(batch.get(i)), texts.get(i));
+        }
+    }
+
+    @Test
+    public void testWalk() {
+        ChainModel model = createModel(2);
+        Generator generator = new Generator(model);
+        GenerationOptions options = new GenerationOptions(0);
+
+        assertEquals(100000, generator.streamIds(options, StopCondition.never()).limit(100000).count());
+        assertEquals(50, generator.stream(options, StopCondition.maxWords(50))
+                .filter(word -> !Wordogram.TOKEN_END.equals(word))
+                .count());
+
+        List<String> sentences = generator.stream(options, StopCondition.maxSentences(3))
+                .collect(Collectors.toList());
+
+        assertEquals(Wordogram.TOKEN_END, sentences.get(sentences.size() - 1));
+        assertEquals(3, sentences.stream().filter(Wordogram.TOKEN_END::equals).count());
+        assertTrue(generator.stream(options, StopCondition.endToken()).noneMatch(Wordogram.TOKEN_END::equals));
+
+        String text = generator.stream(options.withFirstWord("маркова"), StopCondition.maxChars(200))
+                .collect(Collectors.joining(" "))
+                .replace(" .", ".");
+
+        assertTrue(text.startsWith("маркова"));
+        assertTrue(text.length() <= 200);
+        assertTrue(text.length() > 100);
+        assertEquals(0, generator.streamIds(options.withFirstWord("нет"), StopCondition.never()).count());
+    }
+
+    @Test
+    public void testConcurrentGenerate() throws Exception {
+        ChainModel model = createModel(2);
+
+        // throughput of concurrent generation is measured by ConcurrentGenerateBenchmark
+        for (Generator generator : new Generator[]{new Generator(model),
+                new Generator(model, Generator.secureRandoms())}) {
+            ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+
+            try {
+                List<Future<Integer>> results = new ArrayList<>();
+
+                for (int i = 0; i < THREAD_COUNT; i++) {
+                    results.add(executor.submit(() -> {
+                        int count = 0;
+
+                        for (int j = 0; j < TEXT_COUNT; j++) {
+                            if (!generator.generate(140).isEmpty()) {
+                                count++;
+                            }
+                        }
+
+                        return count;
+                    }));
+                }
+
+                for (Future<Integer> result : results) {
+                    assertEquals(TEXT_COUNT, (int) result.get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    private static ChainModel createModel(int order) {
+        Wordogram wordogram = new Wordogram(order);
+        Random random = new Random(11);
+
+        for (int i = 0; i < 100000; i++) {
+            wordogram.addNext(random.nextInt(10) == 0 ? Wordogram.TOKEN_END : WORDS[random.nextInt(WORDS.length)]);
+        }
+
+        return wordogram.toModel();
+    }
+}
@@ -0,0 +1,75 @@
+package io.arusland.text.markov;
+
+import org.junit.After;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class MetricsTest {
+    @After
+    public void tearDown() {
+        Metrics.global().setEnabled(false);
+        Metrics.global().reset();
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int value = 1; value <= 10000; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertTrue(Math.abs(histogram.getPercentile(50) - 5000) <= 5000 / 16);
+        assertTrue(Math.abs(histogram.getPercentile(99) - 9900) <= 9900 / 16);
+
+        for (long value : new long[]{0, 31, 32, 33, 1000, 123456789L, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(value);
+
+            assertTrue(LatencyHistogram.lowestValueOf(index) <= value);
+            assertTrue(index + 1 == 960 || LatencyHistogram.lowestValueOf(index + 1) > value);
+        }
+    }
+
+    @Test
+    public void testRecordsWhenEnabled() throws Exception {
+        Metrics metrics = Metrics.global();
+        metrics.reset();
+        byte[] text = "Цепь Маркова. Цепь случайных событий.".getBytes(StandardCharsets.UTF_8);
+        Wordogram wordogram = new Wordogram();
+
+        new WordParser().parse(Channels.newChannel(new ByteArrayInputStream(text)), wordogram);
+        assertEquals(0, metrics.getParsedTokens());
+
+        metrics.setEnabled(true);
+        new WordParser().parse(Channels.newChannel(new ByteArrayInputStream(text)), wordogram);
+
+        assertEquals(text.length, metrics.getParsedBytes());
+        assertEquals(7, metrics.getParsedTokens());
+
+        ChainModel model = wordogram.toModel();
+        metrics.setModels(() -> model);
+        new Generator(model).generate(100);
+
+        assertEquals(1, metrics.getGeneratedTexts());
+        assertTrue(metrics.getSamplingDrawsPerText() >= 1);
+        assertEquals(model.sizeInBytes(), metrics.getModelMemoryBytes());
+
+        metrics.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        assertEquals(1L, server.getAttribute(new ObjectName(Metrics.OBJECT_NAME), "GeneratedTexts"));
+    }
+}
@@ -0,0 +1,103 @@
+package io.arusland.text.markov;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class ModelSnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        WordParser parser = new WordParser();
+        Wordogram wordogram = new Wordogram(3);
+        Map<String, String> names = new HashMap<>();
+        Map<String, Integer> stats = new HashMap<>();
+
+        String raw = "по-русски. Цепь Маркова — последовательность случайных событий с конечным или счётным числом исходов, характеризующаяся тем свойством, что, говоря нестрого, при фиксированном настоящем будущее независимо от прошлого. Названа в честь А. А. Маркова (старшего). Цепь Маркова названа в честь Маркова.";
+        List<String> words = parser.parse(raw, names, stats);
+        words.forEach(word -> wordogram.addNext(word));
+
+        ChainModel expected = wordogram.toModel();
+        File file = folder.newFile("model.bin");
+        ModelSnapshot.of(expected, names, stats).save(file);
+
+        ModelSnapshot snapshot = ModelSnapshot.open(file);
+        ChainModel actual = snapshot.getModel();
+
+        assertEquals(expected.getOrder(), actual.getOrder());
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getStateCount(), actual.getStateCount());
+        assertEquals(expected.getTransitionCount(), actual.getTransitionCount());
+
+        for (int id = 0; id < expected.size(); id++) {
+            String word = expected.getWord(id);
+            assertEquals(word, actual.getWord(id));
+            assertEquals(id, actual.getId(word));
+
+            for (int olderWord = 0; olderWord < expected.size(); olderWord++) {
+                assertEquals(expected.getContext(id, olderWord), actual.getContext(id, olderWord));
+            }
+        }
+
+        for (int state = 0; state < expected.getStateCount(); state++) {
+            assertEquals(expected.getSuccessorCount(state), actual.getSuccessorCount(state));
+
+            for (int i = 0; i < expected.getSuccessorCount(state); i++) {
+                assertEquals(expected.getSuccessor(state, i), actual.getSuccessor(state, i));
+                assertEquals(expected.getSuccessorWeight(state, i), actual.getSuccessorWeight(state, i));
+            }
+        }
+
+        StatsIndex expectedStats = expected.getStatsIndex();
+        StatsIndex actualStats = actual.getStatsIndex();
+        assertEquals(expectedStats.size(), actualStats.size());
+
+        for (int id = 0; id < expected.size(); id++) {
+            assertEquals(expectedStats.getCount(id), actualStats.getCount(id));
+            assertEquals(expectedStats.getRank(id), actualStats.getRank(id));
+
+            for (int pos = 0; pos < expected.getSuccessorCount(id); pos++) {
+                assertEquals(expectedStats.getSuccessorIndex(id, pos), actualStats.getSuccessorIndex(id, pos));
+            }
+        }
+
+        assertTrue(names.size() > 0);
+        assertEquals(names.size(), snapshot.getNameCount());
+
+        for (Map.Entry<String, String> name : names.entrySet()) {
+            assertEquals(name.getValue(), snapshot.getName(name.getKey()));
+        }
+
+        for (Map.Entry<String, Integer> stat : stats.entrySet()) {
+            assertEquals((int) stat.getValue(), snapshot.getCount(stat.getKey()));
+        }
+
+        assertNull(snapshot.getName("нет"));
+        assertEquals(0, snapshot.getCount("нет"));
+        assertTrue(new Generator(actual).generate(140).length() > 0);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotSnapshot() throws IOException {
+        File file = folder.newFile("model.txt");
+        Files.write(file.toPath(), "цепь маркова".getBytes("UTF-8"));
+
+        ModelSnapshot.open(file);
+    }
+}
@@ -0,0 +1,60 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @since 2026-10-18
+ */
+public class NameIndexTest {
+    @Test
+    public void testNamesResolvedOnModelBuild() throws IOException {
+        Wordogram wordogram = new Wordogram();
+        load(wordogram, "Названа в честь Маркова. Цепь Маркова. Цепь случайных событий.");
+
+        NameIndex names = wordogram.getNames();
+        Vocabulary vocabulary = wordogram.getVocabulary();
+
+        assertEquals("Маркова", names.getName(vocabulary.getId("маркова")));
+        // capitalized only at the start of a sentence
+        assertNull(names.getName(vocabulary.getId("цепь")));
+        assertEquals(2, names.getCapitalizedCount(vocabulary.getId("цепь")));
+        assertEquals(1, names.getNameCount());
+
+        ChainModel model = wordogram.toModel();
+
+        assertEquals(-1, model.getId("маркова"));
+        assertEquals("Маркова", model.getWord(model.getId("Маркова")));
+    }
+
+    @Test
+    public void testNameChangesWithNextTexts() throws IOException {
+        Wordogram wordogram = new Wordogram();
+        load(wordogram, "Это Роза. Там Роза.");
+        int id = wordogram.getVocabulary().getId("роза");
+
+        assertEquals("Роза", wordogram.getNames().getName(id));
+
+        load(wordogram, "Красная роза. Белая роза. Ещё роза.");
+
+        assertNull(wordogram.getNames().getName(id));
+
+        load(wordogram, "Снова Роза. Опять Роза.");
+
+        assertEquals("Роза", wordogram.getNames().getName(id));
+        assertEquals(4, wordogram.getNames().getCapitalizedCount(id));
+        assertEquals(3, wordogram.getNames().getLowercaseCount(id));
+    }
+
+    private static void load(Wordogram wordogram, String text) throws IOException {
+        new WordParser().parse(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))),
+                wordogram);
+    }
+}
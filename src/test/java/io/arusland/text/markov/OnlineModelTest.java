@@ -0,0 +1,169 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class OnlineModelTest {
+    private static final String[] WORDS = {"цепь", "маркова", "последовательность", "случайных", "событий",
+            "с", "конечным", "или", "счётным", "числом", "исходов"};
+    private static final String[] TEXT_WORDS = {"Цепь", "Маркова", "Андрей", "москва", "Москва", "и", "в",
+            "событий", "исходов", "числом"};
+
+    @Test
+    public void testReadersDuringUpdates() throws Exception {
+        OnlineModel online = new OnlineModel(new Wordogram(2), 5);
+        online.start();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        AtomicBoolean training = new AtomicBoolean(true);
+
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+
+            for (int i = 0; i < 2; i++) {
+                readers.add(executor.submit(() -> {
+                    int previousTransitions = 0;
+                    int texts = 0;
+
+                    while (training.get() || texts == 0) {
+                        ChainModel model = online.getModel();
+
+                        // published models only grow
+                        assertTrue(model.getTransitionCount() >= previousTransitions);
+                        previousTransitions = model.getTransitionCount();
+                        new Generator(model).generate(140);
+                        texts++;
+                    }
+
+                    return texts;
+                }));
+            }
+
+            Random random = new Random(1);
+
+            for (int i = 0; i < 2000; i++) {
+                online.update(wordogram -> {
+                    for (int j = 0; j < 20; j++) {
+                        wordogram.addNext(random.nextInt(8) == 0 ? Wordogram.TOKEN_END : WORDS[random.nextInt(WORDS.length)]);
+                    }
+
+                    return null;
+                });
+            }
+
+            training.set(false);
+
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get() > 0);
+            }
+
+            ChainModel model = online.publish();
+
+            assertSame(model, online.getModel());
+            assertEquals((int) online.read(Wordogram::getTransitionCount), model.getTransitionCount());
+        } finally {
+            executor.shutdown();
+            online.close();
+        }
+    }
+
+    @Test
+    public void testIncrementalPublish() throws Exception {
+        OnlineModel online = new OnlineModel(new Wordogram(3), 60_000);
+        WordParser parser = new WordParser();
+        Random random = new Random(3);
+
+        for (int round = 0; round < 30; round++) {
+            StringBuilder sb = new StringBuilder();
+
+            for (int i = 0; i < 50; i++) {
+                // new words keep coming, so states of several words are renumbered by every publish
+                sb.append(random.nextInt(10) == 0 ? "слово" + random.nextInt(200) : TEXT_WORDS[random.nextInt(TEXT_WORDS.length)])
+                        .append(random.nextInt(6) == 0 ? ". " : " ");
+            }
+
+            byte[] text = sb.toString().getBytes(StandardCharsets.UTF_8);
+            online.update(wordogram -> {
+                parser.parse(Channels.newChannel(new ByteArrayInputStream(text)), wordogram);
+
+                return null;
+            });
+
+            ChainModel model = online.publish();
+            ChainModel expected = online.read(Wordogram::toModel);
+            assertModelEquals(expected, model);
+
+            // solved from the previous lengths before publishing, iterations from zero approach
+            // the same solution from below, both stop once a pass changes little
+            for (int id = 0; id < model.size(); id++) {
+                float length = expected.getSentenceLengths().getExpectedLength(id);
+                assertEquals(length, model.getSentenceLengths().getExpectedLength(id), Math.max(1, length * 0.1));
+            }
+        }
+
+        ChainModel model = online.getModel();
+        assertSame(model.getWords(), online.publish().getWords());
+        assertTrue(model.getWords().indexOf("Маркова") >= 0);
+    }
+
+    private static void assertModelEquals(ChainModel expected, ChainModel actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.getStateCount(), actual.getStateCount());
+        assertEquals(expected.getTransitionCount(), actual.getTransitionCount());
+
+        for (int id = 0; id < expected.size(); id++) {
+            assertEquals(expected.getWord(id), actual.getWord(id));
+        }
+
+        for (int state = 0; state < expected.getStateCount(); state++) {
+            assertEquals(expected.getSuccessorCount(state), actual.getSuccessorCount(state));
+
+            for (int i = 0; i < expected.getSuccessorCount(state); i++) {
+                assertEquals(expected.getSuccessor(state, i), actual.getSuccessor(state, i));
+                assertEquals(expected.getSuccessorWeight(state, i), actual.getSuccessorWeight(state, i));
+            }
+        }
+
+        StatsIndex expectedStats = expected.getStatsIndex();
+        StatsIndex actualStats = actual.getStatsIndex();
+
+        for (int rank = 0; rank < expectedStats.size(); rank++) {
+            assertEquals(expectedStats.getWord(rank), actualStats.getWord(rank));
+            assertEquals(expectedStats.getCount(expectedStats.getWord(rank)), actualStats.getCount(actualStats.getWord(rank)));
+        }
+
+        for (int id = 0; id < expected.size(); id++) {
+            for (int pos = 0; pos < expected.getSuccessorCount(id); pos++) {
+                assertEquals(expectedStats.getSuccessorIndex(id, pos), actualStats.getSuccessorIndex(id, pos));
+            }
+        }
+
+        LongBuffer keys = expected.getContextKeys();
+        IntBuffer values = expected.getContextValues();
+
+        for (int i = 0; i < keys.limit(); i++) {
+            if (keys.get(i) >= 0) {
+                assertEquals(values.get(i),
+                        actual.getContext(LongIntHashMap.high(keys.get(i)), LongIntHashMap.low(keys.get(i))));
+            }
+        }
+    }
+}
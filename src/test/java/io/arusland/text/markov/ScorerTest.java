@@ -0,0 +1,107 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class ScorerTest {
+    private static final String TEXT = "Цепь Маркова — последовательность случайных событий с конечным или счётным " +
+            "числом исходов. Названа в честь Андрея Маркова, который изучал последовательность событий. " +
+            "Андрей Марков изучал цепь событий с конечным числом исходов. ";
+
+    @Test
+    public void testProbabilitiesSumToOne() {
+        Scorer scorer = new Scorer(createModel(3));
+        ChainModel model = scorer.getModel();
+        int[][] histories = {{}, {Wordogram.END_ID}, {model.getId("событий")},
+                {model.getId("событий"), model.getId("случайных")}, {model.getId("исходов"), model.getId("числом")},
+                {model.getId("числом"), model.getId("событий"), model.getId("изучал")}};
+
+        for (int[] history : histories) {
+            double sum = scorer.getProbability(history, history.length, -1);
+
+            for (int word = 0; word < model.size(); word++) {
+                sum += scorer.getProbability(history, history.length, word);
+            }
+
+            assertEquals(1.0, sum, 1e-9);
+        }
+    }
+
+    @Test
+    public void testScore() {
+        Scorer scorer = new Scorer(createModel(2));
+
+        TextScore seen = scorer.score("Андрей Марков изучал цепь событий с конечным числом исходов.");
+        TextScore shuffled = scorer.score("Исходов числом конечным с событий цепь изучал Марков андрей.");
+        TextScore unknown = scorer.score("Колмогоров изучал цепь событий с бесконечным числом исходов.");
+
+        assertEquals(10, seen.getTokenCount());
+        assertEquals(0, seen.getUnknownCount());
+        assertEquals(2, unknown.getUnknownCount());
+        assertTrue(seen.getLogLikelihood() < 0);
+        assertTrue(seen + " " + shuffled, seen.getPerplexity() * 3 < shuffled.getPerplexity());
+        assertTrue(seen + " " + unknown, seen.getPerplexity() * 3 < unknown.getPerplexity());
+        assertEquals(1.0, scorer.score("— 2026 —").getPerplexity(), 0);
+
+        List<String> texts = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            texts.add(i % 2 == 0 ? TEXT.substring(i % 50) : "Марков и " + i + " Колмогоров");
+        }
+
+        List<TextScore> scores = scorer.score(texts, 4);
+
+        for (int i = 0; i < texts.size(); i++) {
+            TextScore expected = scorer.score(texts.get(i));
+            assertEquals(expected.getTokenCount(), scores.get(i).getTokenCount());
+            assertEquals(expected.getLogLikelihood(), scores.get(i).getLogLikelihood(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testVocabularyLimit() {
+        ChainModel model = createModel(2);
+        Scorer scorer = new Scorer(model);
+        // the vocabulary is cleared after every few texts
+        Scorer limited = new Scorer(model, new WordParser(), 8);
+        List<String> texts = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            texts.add(i % 2 == 0 ? TEXT.substring(i % 50) : "Марков и " + i + " Колмогоров " + (i * 7));
+        }
+
+        for (int pass = 0; pass < 2; pass++) {
+            List<TextScore> scores = limited.score(texts, 2);
+
+            for (int i = 0; i < texts.size(); i++) {
+                TextScore expected = scorer.score(texts.get(i));
+                assertEquals(expected.getUnknownCount(), limited.score(texts.get(i)).getUnknownCount());
+                assertEquals(expected.getLogLikelihood(), scores.get(i).getLogLikelihood(), 1e-9);
+            }
+        }
+    }
+
+    private static ChainModel createModel(int order) {
+        Wordogram wordogram = new Wordogram(order);
+        Map<String, String> names = new HashMap<>();
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 20; i++) {
+            sb.append(TEXT);
+        }
+
+        new WordParser().parse(sb.toString(), names, new HashMap<>()).forEach(wordogram::addNext);
+
+        return wordogram.toModel(names);
+    }
+}
@@ -0,0 +1,106 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class SeedIndexTest {
+    @Test
+    public void testFind() {
+        ChainModel model = createModel();
+        SeedIndex index = model.getSeedIndex();
+
+        assertEquals(model.size() - 1, index.size());
+        assertEquals(model.getId("путь"), index.find("ПУТЬ"));
+        assertEquals(model.getId("путь"), index.find("Путь"));
+        assertEquals(model.getId("Москва"), index.find("москва"));
+        assertEquals(-1, index.find("пут"));
+        assertEquals(-1, index.find("."));
+        assertEquals(-1, index.find(""));
+
+        // both forms are known, the one written as the seed wins, otherwise the most frequent one
+        assertEquals(model.getId("Вера"), index.find("Вера"));
+        assertEquals(model.getId("вера"), index.find("вера"));
+        assertEquals(model.getId("вера"), index.find("ВЕРА"));
+
+        int start = index.indexOf("ВеРа");
+        assertEquals(start + 2, index.groupEnd(start));
+    }
+
+    @Test
+    public void testPrefix() {
+        ChainModel model = createModel();
+        SeedIndex index = model.getSeedIndex();
+
+        assertEquals(3, index.prefixEnd("ПУТ", 3) - index.prefixStart("ПУТ", 3));
+        assertEquals(0, index.prefixEnd("пх", 2) - index.prefixStart("пх", 2));
+        assertEquals(index.size(), index.prefixEnd("", 0) - index.prefixStart("", 0));
+
+        Random random = new Random(1);
+        Set<String> words = new HashSet<>();
+
+        for (int i = 0; i < 1000; i++) {
+            words.add(model.getWord(index.find("Пут*", i % 2 == 0, random)));
+        }
+
+        assertEquals(new HashSet<>(Arrays.asList("путь", "Путник", "путаница")), words);
+        assertTrue(index.find("пут…", true, random) >= 0);
+        assertEquals(-1, index.find("пх*", true, random));
+        assertEquals(model.getId("путь"), index.find("путь", true, random));
+    }
+
+    @Test
+    public void testOrder() {
+        Wordogram wordogram = new Wordogram(1);
+        Random random = new Random(3);
+        String letters = "пПуУтТьЬaA";
+
+        for (int i = 0; i < 20000; i++) {
+            StringBuilder word = new StringBuilder();
+
+            for (int j = random.nextInt(6); j >= 0; j--) {
+                word.append(letters.charAt(random.nextInt(letters.length())));
+            }
+
+            wordogram.addNext(word.toString());
+        }
+
+        ChainModel model = wordogram.toModel();
+        SeedIndex index = model.getSeedIndex();
+
+        assertEquals(model.size() - 1, index.size());
+
+        for (int pos = 1; pos < index.size(); pos++) {
+            String previous = model.getWord(index.getId(pos - 1)).toUpperCase().toLowerCase();
+            String word = model.getWord(index.getId(pos)).toUpperCase().toLowerCase();
+            int cmp = previous.compareTo(word);
+
+            assertTrue(cmp < 0 || cmp == 0 && index.getId(pos - 1) < index.getId(pos));
+        }
+    }
+
+    private static ChainModel createModel() {
+        Map<String, Map<String, Integer>> words = new HashMap<>();
+        String[] tokens = {"путь", "Путник", "путаница", "Москва", "Вера", "вера", "вера", "пустой", "да"};
+
+        for (int i = 0; i < tokens.length; i++) {
+            String next = tokens[(i + 1) % tokens.length];
+            words.computeIfAbsent(tokens[i], key -> new HashMap<>()).merge(next, 1, Integer::sum);
+        }
+
+        words.computeIfAbsent(Wordogram.TOKEN_END, key -> new HashMap<>()).put("путь", 1);
+
+        return ChainModel.compile(words);
+    }
+}
@@ -0,0 +1,114 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class SentenceFilterTest {
+    private static final String SENTENCE = "Цепь Маркова — последовательность случайных событий. ";
+
+    @Test
+    public void testSkipRepeatedSentences() {
+        WordParser parser = new WordParser();
+        SentenceFilter filter = new SentenceFilter(1 << 16);
+        parser.setSentenceFilter(filter);
+
+        List<String> words = parser.parse(SENTENCE + "Да будет так. " + "цепь маркова, последовательность "
+                + "случайных событий! Да будет так. Андрей Марков изучал цепь событий", new HashMap<>(), new HashMap<>());
+
+        assertEquals(Arrays.asList("цепь", "Маркова", "последовательность", "случайных", "событий", ".",
+                "да", "будет", "так", ".", "да", "будет", "так", ".", "андрей", "Марков", "изучал", "цепь", "событий",
+                "."), words);
+        assertEquals(3, filter.getSentenceCount());
+        assertEquals(1, filter.getSkippedSentences());
+        assertEquals((" цепь маркова, последовательность случайных событий!")
+                .getBytes(StandardCharsets.UTF_8).length, filter.getSkippedBytes());
+
+        // the filter is shared by later texts
+        assertEquals(Arrays.asList("да", "будет", "так", "."),
+                parser.parse(SENTENCE + "Да будет так.", new HashMap<>(), new HashMap<>()));
+        assertEquals(2, filter.getSkippedSentences());
+    }
+
+    @Test
+    public void testParseChannel() throws Exception {
+        WordParser parser = new WordParser();
+        parser.setSentenceFilter(new SentenceFilter(1 << 16, 3));
+        Wordogram wordogram = new Wordogram(2);
+        byte[] text = (SENTENCE + SENTENCE + "Марков изучал цепи. " + SENTENCE).getBytes(StandardCharsets.UTF_8);
+
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(text)), wordogram);
+
+        Wordogram expected = new Wordogram(2);
+        new WordParser().parse(SENTENCE + "Марков изучал цепи.", new HashMap<>(), new HashMap<>())
+                .forEach(word -> expected.addNext(word.toLowerCase()));
+
+        assertEquals(expected.getStateCount(), wordogram.getStateCount());
+        assertEquals(expected.getContextCount(), wordogram.getContextCount());
+        assertEquals(2 * SENTENCE.getBytes(StandardCharsets.UTF_8).length,
+                parser.getSentenceFilter().getSkippedBytes());
+    }
+
+    @Test
+    public void testSkipCounts() throws Exception {
+        String named = "Цепь Маркова изучал Андрей Андреевич Марков. ";
+        String text = SENTENCE + named + SENTENCE + named;
+        String unique = SENTENCE + named;
+        WordParser parser = new WordParser();
+        parser.setSentenceFilter(new SentenceFilter(1 << 16));
+        Map<String, String> names = new HashMap<>();
+        Map<String, Integer> stats = new HashMap<>();
+        Map<String, String> expectedNames = new HashMap<>();
+        Map<String, Integer> expectedStats = new HashMap<>();
+
+        parser.parse(text, names, stats);
+        new WordParser().parse(unique, expectedNames, expectedStats);
+
+        assertEquals(expectedNames, names);
+        assertEquals(expectedStats, stats);
+
+        // the same with counts kept in the name index of a wordogram
+        parser.setSentenceFilter(new SentenceFilter(1 << 16));
+        Wordogram wordogram = new Wordogram(2);
+        Wordogram expected = new Wordogram(2);
+
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))), wordogram);
+        new WordParser().parse(Channels.newChannel(new ByteArrayInputStream(unique.getBytes(StandardCharsets.UTF_8))),
+                expected);
+
+        assertEquals(expected.getNames().toCountMap(expected.getVocabulary()),
+                wordogram.getNames().toCountMap(wordogram.getVocabulary()));
+        assertEquals(expected.getNames().toNameMap(expected.getVocabulary()),
+                wordogram.getNames().toNameMap(wordogram.getVocabulary()));
+    }
+
+    @Test
+    public void testFilter() {
+        SentenceFilter filter = new SentenceFilter(1 << 20);
+
+        for (long hash = 0; hash < 10_000; hash++) {
+            assertTrue(filter.add(hash * 0x9E3779B97F4A7C15L));
+        }
+
+        for (long hash = 0; hash < 10_000; hash++) {
+            assertFalse(filter.add(hash * 0x9E3779B97F4A7C15L));
+        }
+
+        assertEquals(1 << 20, filter.getMemoryBytes());
+        assertTrue(filter.getFill() > 0 && filter.getFill() < 0.01);
+        assertTrue(filter.getFalsePositiveRate() < 1e-12);
+    }
+}
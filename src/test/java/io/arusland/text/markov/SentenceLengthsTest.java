@@ -0,0 +1,30 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @since 2026-10-18
+ */
+public class SentenceLengthsTest {
+    @Test
+    public void testExpectedLength() {
+        Wordogram wordogram = new Wordogram();
+
+        for (String word : "а бб . а .".split(" ")) {
+            wordogram.addNext(word);
+        }
+
+        ChainModel model = wordogram.toModel();
+        SentenceLengths lengths = model.getSentenceLengths();
+
+        assertEquals(1, lengths.getExpectedLength(model.getId("бб")), 0.01);
+        // "." or " бб."
+        assertEquals(2.5, lengths.getExpectedLength(model.getId("а")), 0.01);
+        // " а" and the rest
+        assertEquals(4.5, lengths.getExpectedLength(Wordogram.END_ID), 0.01);
+        assertEquals(5.5, lengths.getCost(Wordogram.END_ID), 0.01);
+        assertEquals(5.5, lengths.getReach(model.getId("а")), 0.01);
+    }
+}
@@ -0,0 +1,70 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class StatsIndexTest {
+    @Test
+    public void testIndex() {
+        Wordogram wordogram = new Wordogram(2);
+        Map<String, Integer> counts = new HashMap<>();
+        Random random = new Random(5);
+
+        for (int i = 0; i < 50000; i++) {
+            // skewed frequencies with many equal counts among rare words
+            String word = random.nextInt(8) == 0 ? Wordogram.TOKEN_END : "w" + (int) Math.sqrt(random.nextInt(40000));
+            wordogram.addNext(word);
+            counts.merge(word, 1, Integer::sum);
+        }
+
+        ChainModel model = wordogram.toModel();
+        StatsIndex index = model.getStatsIndex();
+
+        assertEquals(model.size() - 1, index.size());
+        assertEquals(-1, index.getRank(Wordogram.END_ID));
+
+        for (int rank = 0; rank < index.size(); rank++) {
+            int id = index.getWord(rank);
+
+            assertEquals(rank, index.getRank(id));
+            assertEquals((int) counts.get(model.getWord(id)), index.getCount(id));
+
+            if (rank > 0) {
+                int prev = index.getWord(rank - 1);
+                assertTrue(index.getCount(prev) > index.getCount(id) || index.getCount(prev) == index.getCount(id)
+                        && model.getWord(prev).compareTo(model.getWord(id)) < 0);
+            }
+        }
+
+        for (int id = 0; id < model.size(); id++) {
+            List<Integer> expected = new ArrayList<>();
+
+            for (int i = 0; i < model.getSuccessorCount(id); i++) {
+                expected.add(i);
+            }
+
+            int state = id;
+            expected.sort((i1, i2) -> {
+                int cmp = Integer.compare(model.getSuccessorWeight(state, i2), model.getSuccessorWeight(state, i1));
+
+                return cmp != 0 ? cmp
+                        : model.getWord(model.getSuccessor(state, i1)).compareTo(model.getWord(model.getSuccessor(state, i2)));
+            });
+
+            for (int pos = 0; pos < expected.size(); pos++) {
+                assertEquals((int) expected.get(pos), index.getSuccessorIndex(id, pos));
+            }
+        }
+    }
+}
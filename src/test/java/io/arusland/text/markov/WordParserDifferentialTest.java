@@ -0,0 +1,197 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link WordParser} with the straightforward substring based parser it replaced.
+ *
+ * @since 2026-10-18
+ */
+public class WordParserDifferentialTest {
+    private static final String[] SYLLABLES = {"ма", "ко", "ва", "цепь", "по", "сле", "до", "ва", "тель",
+            "ность", "ё", "жи", "щу", "ры", "ба", "ст", "ок"};
+    private static final String[] SEPARATORS = {" ", " ", " ", ", ", ". ", "! ", "? ", "; ", ": ", "… ",
+            " — ", " - ", "\n", "\n\n", " (", ") ", " «", "» ", "...", " test ", " Latin "};
+
+    @Test
+    public void testSameAsReference() throws IOException {
+        String raw = generateCorpus(new Random(20170308), 2_000_000);
+
+        Map<String, String> expectedNames = new HashMap<>();
+        Map<String, Integer> expectedStats = new HashMap<>();
+        List<String> expected = ReferenceParser.parse(raw, expectedNames, expectedStats);
+
+        WordParser parser = new WordParser();
+        Map<String, String> names = new HashMap<>();
+        Map<String, Integer> stats = new HashMap<>();
+        List<String> words = parser.parse(raw, names, stats);
+
+        assertEquals(expectedNames, names);
+        assertEquals(expectedStats, stats);
+        assertEquals(expected, words);
+
+        Map<String, String> streamNames = new HashMap<>();
+        Map<String, Integer> streamStats = new HashMap<>();
+        List<String> streamWords = new ArrayList<>();
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(raw.getBytes(StandardCharsets.UTF_8))),
+                streamNames, streamStats, streamWords::add);
+
+        assertEquals(expectedNames, streamNames);
+        assertEquals(expectedStats, streamStats);
+        assertEquals(expected, streamWords.stream()
+                .map(word -> streamNames.containsKey(word) ? streamNames.get(word) : word)
+                .collect(Collectors.toList()));
+    }
+
+    private static String generateCorpus(Random random, int length) {
+        StringBuilder sb = new StringBuilder(length + 64);
+
+        while (sb.length() < length) {
+            int kind = random.nextInt(20);
+
+            if (kind == 0) {
+                sb.append(random.nextInt(3000));
+            } else if (kind == 1) {
+                sb.append(randomWord(random)).append('-').append(randomWord(random));
+            } else {
+                String word = randomWord(random);
+
+                if (kind < 5) {
+                    word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                } else if (kind == 5) {
+                    word = word.toUpperCase();
+                }
+
+                sb.append(word);
+            }
+
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+
+        // the text ends in the middle of a word
+        return sb.append("Хвост").toString();
+    }
+
+    private static String randomWord(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int count = 1 + random.nextInt(3);
+
+        for (int i = 0; i < count; i++) {
+            sb.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * The parser as it was before the tokenizer was rewritten.
+     */
+    private static class ReferenceParser {
+        static List<String> parse(String raw, Map<String, String> names, Map<String, Integer> stats) {
+            String content = raw.toLowerCase();
+            List<String> words = new ArrayList<>();
+
+            int startIndex = 0;
+
+            for (int i = 0; i < content.length(); i++) {
+                char ch = content.charAt(i);
+
+                if (isTokenChar(ch)) {
+                    continue;
+                }
+
+                if (i > startIndex) {
+                    String nextWord = content.substring(startIndex, i);
+                    String rawNextWord = raw.substring(startIndex, i);
+
+                    if (!rawNextWord.equals(nextWord) &&
+                            !isLastEndWord(words) && words.size() > 0) {
+                        if (!names.containsKey(nextWord)) {
+                            names.put(nextWord, rawNextWord);
+                        }
+                    }
+
+                    if (isLegalWord(nextWord)) {
+                        words.add(nextWord);
+                        stats.merge(rawNextWord, 1, Integer::sum);
+                    } else {
+                        addEndChar(words);
+                    }
+                }
+
+                if (isEndChar(ch)) {
+                    addEndChar(words);
+                }
+
+                startIndex = i + 1;
+            }
+
+            if (startIndex < content.length()) {
+                words.add(content.substring(startIndex));
+            }
+
+            addEndChar(words);
+
+            List<String> allNames = new ArrayList<>(names.keySet());
+
+            for (String name : allNames) {
+                String rawName = names.get(name);
+                Integer count = stats.get(rawName.toLowerCase());
+
+                if (count != null && count > stats.get(rawName)) {
+                    names.remove(name);
+                }
+            }
+
+            return words.stream()
+                    .map(word -> names.containsKey(word) ? names.get(word) : word)
+                    .collect(Collectors.toList());
+        }
+
+        private static void addEndChar(List<String> words) {
+            if (words.size() > 0 && !isLastEndWord(words)) {
+                words.add(Wordogram.TOKEN_END);
+            }
+        }
+
+        private static boolean isLastEndWord(List<String> words) {
+            return words.size() > 0 && words.get(words.size() - 1).equals(Wordogram.TOKEN_END);
+        }
+
+        private static boolean isEndChar(char ch) {
+            return ch == '.' || ch == '?' || ch == '!' || ch == ';' ||
+                    ch == '…' || ch == ':';
+        }
+
+        private static boolean isLegalWord(String word) {
+            if (word.length() == 1 && word.charAt(0) == '-') {
+                return false;
+            }
+
+            for (int i = 0; i < word.length(); i++) {
+                if (!Character.isDigit(word.charAt(i))) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        private static boolean isTokenChar(char ch) {
+            return ch >= 'а' && ch <= 'я' || ch == 'ё' || ch == '-' || Character.isDigit(ch);
+        }
+    }
+}
@@ -2,13 +2,23 @@ package io.arusland.text.markov;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
 
 /**
  * @author Ruslan Absalyamov
@@ -41,6 +51,88 @@ public class WordParserTest {
         }
     }
 
+    @Test
+    public void testParseChannel() throws IOException {
+        WordParser parser = new WordParser();
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 2000; i++) {
+            sb.append("Цепь Маркова — последовательность случайных событий с конечным или счётным числом исходов. ");
+            sb.append("Названа в честь А. А. Маркова (старшего), ").append(i).append(" раз по-русски!\n");
+        }
+
+        String raw = sb.toString();
+        Map<String, String> names = new HashMap<>();
+        Map<String, Integer> stats = new HashMap<>();
+        List<String> expected = parser.parse(raw, names, stats);
+
+        Map<String, String> streamNames = new HashMap<>();
+        Map<String, Integer> streamStats = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(raw.getBytes("UTF-8")));
+        parser.parse(channel, streamNames, streamStats, words::add);
+
+        assertEquals(names, streamNames);
+        assertEquals(stats, streamStats);
+        assertEquals(expected, words.stream()
+                .map(word -> streamNames.containsKey(word) ? streamNames.get(word) : word)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testAlphabet() {
+        String raw = "Привіт, Ґанна! Hello World, café déjà-vu. Қазақ тілі 2026 года.";
+        WordParser parser = new WordParser();
+
+        // letters out of the alphabet split words
+        assertEquals(Arrays.asList("прив", "т", "анна", ".", "аза", "т", "л", ".", "года", "."),
+                parser.parse(raw, new HashMap<>(), new HashMap<>()));
+
+        parser.setAlphabet(Alphabet.parse("cyrillic, latin"));
+        Map<String, String> names = new HashMap<>();
+
+        assertEquals(Arrays.asList("привіт", "Ґанна", ".", "hello", "World", "café", "déjà-vu", ".",
+                "қазақ", "тілі", ".", "года", "."), parser.parse(raw, names, new HashMap<>()));
+        assertEquals("cyrillic,latin", parser.getAlphabet().toString());
+        assertEquals(Alphabet.RUSSIAN, Alphabet.of(Alphabet.Script.RUSSIAN));
+    }
+
+    @Test
+    public void testParseMalformedUtf8() throws IOException {
+        WordParser parser = new WordParser();
+        parser.setAlphabet(Alphabet.parse("cyrillic,latin,greek"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // the chunk size is not a multiple of any char size, so chars of every size are split between chunks
+        for (int i = 0; out.size() < 300_000; i++) {
+            out.write(("Ёлка \uD83C\uDF84 Ωmega " + i + " ∑ straße. ").getBytes(StandardCharsets.UTF_8));
+
+            if (i % 100 == 0) {
+                // truncated sequence, stray continuation, overlong encoding of a period and an encoded surrogate
+                out.write(new byte[]{(byte) 0xD0, ' ', (byte) 0x81, (byte) 0xC0, (byte) 0xAE, (byte) 0xED,
+                        (byte) 0xA0, (byte) 0x80, 'x'});
+            }
+        }
+
+        out.write((byte) 0xE2);
+        byte[] bytes = out.toByteArray();
+
+        Map<String, String> names = new HashMap<>();
+        Map<String, Integer> stats = new HashMap<>();
+        List<String> expected = parser.parse(new String(bytes, StandardCharsets.UTF_8), names, stats);
+
+        Map<String, String> streamNames = new HashMap<>();
+        Map<String, Integer> streamStats = new HashMap<>();
+        List<String> words = new ArrayList<>();
+        parser.parse(Channels.newChannel(new ByteArrayInputStream(bytes)), streamNames, streamStats, words::add);
+
+        assertEquals(names, streamNames);
+        assertEquals(stats, streamStats);
+        assertEquals(expected, words.stream()
+                .map(word -> streamNames.containsKey(word) ? streamNames.get(word) : word)
+                .collect(Collectors.toList()));
+    }
+
     @Test
     public void testFromFile() throws URISyntaxException, IOException {
         WordParser parser = new WordParser();
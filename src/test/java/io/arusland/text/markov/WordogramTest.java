@@ -0,0 +1,166 @@
+package io.arusland.text.markov;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class WordogramTest {
+    @Test
+    public void testFirstOrder() {
+        Wordogram wordogram = new Wordogram();
+        addAll(wordogram, "а б в . а б г .");
+
+        assertEquals(1, (int) wordogram.getWords().get("б").get("в"));
+        assertEquals(1, (int) wordogram.getWords().get("б").get("г"));
+        assertEquals(2, (int) wordogram.getWords().get(Wordogram.TOKEN_END).get("а"));
+        assertEquals(0, wordogram.getContextCount());
+    }
+
+    @Test
+    public void testSecondOrder() {
+        Wordogram wordogram = new Wordogram(2);
+        addAll(wordogram, "я иду домой . ты иду гулять . я иду домой .");
+
+        ChainModel model = wordogram.toModel();
+        Random random = new Random(42);
+        int[] history = {model.getId("иду"), model.getId("я")};
+        int state = model.findState(history, 2);
+
+        assertTrue(state >= model.size());
+        assertEquals(1, model.getSuccessorCount(state));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(model.getId("домой"), model.nextWeighted(state, random));
+        }
+
+        // unseen pair backs off to the single word state
+        history[1] = model.getId("гулять");
+        assertEquals(model.getId("иду"), model.findState(history, 2));
+        assertEquals(2, model.getSuccessorCount(model.getId("иду")));
+    }
+
+    @Test
+    public void testStatesDoNotCrossSentences() {
+        Wordogram wordogram = new Wordogram(3);
+        addAll(wordogram, "а б . в г .");
+
+        ChainModel model = wordogram.toModel();
+
+        assertTrue(model.getContext(model.getId("в"), model.getId("б")) < 0);
+        assertTrue(model.getContext(model.getId("в"), Wordogram.END_ID) >= 0);
+    }
+
+    @Test
+    public void testPrune() {
+        Wordogram wordogram = new Wordogram(2);
+        addAll(wordogram, "я иду домой . я иду домой . я иду гулять . ты едешь домой . мы едем .");
+        long memory = wordogram.getMemoryUsage();
+
+        wordogram.prune(new PruneOptions(2, 0, 0));
+
+        assertEquals(2, (int) wordogram.getWords().get("иду").get("домой"));
+        assertNull(wordogram.getWords().get("иду").get("гулять"));
+        assertNull(wordogram.getWords().get("ты"));
+        assertEquals(-1, wordogram.getVocabulary().getId("мы"));
+        assertTrue(wordogram.getMemoryUsage() < memory);
+
+        ChainModel model = wordogram.toModel();
+        int state = model.findState(new int[]{model.getId("иду"), model.getId("я")}, 2);
+
+        assertTrue(state >= model.size());
+        assertEquals(model.getId("домой"), model.getSuccessor(state, 0));
+    }
+
+    @Test
+    public void testPruneVocabularyAndSuccessors() {
+        Wordogram wordogram = new Wordogram();
+        addAll(wordogram, "а б . а в . а г . б в . а б .");
+
+        wordogram.prune(new PruneOptions(0, 4, 1));
+
+        // the end token, "а", "б" and the unknown token for "в" and "г"
+        assertEquals(4, wordogram.getVocabulary().size());
+        assertEquals(4, (int) wordogram.getWords().get(Wordogram.TOKEN_END).get("а"));
+        assertEquals(1, wordogram.getWords().get("а").size());
+        assertEquals(2, (int) wordogram.getWords().get("а").get("б"));
+        assertEquals(3, (int) wordogram.getWords().get(Wordogram.TOKEN_UNKNOWN).get(Wordogram.TOKEN_END));
+        assertEquals(2, (int) wordogram.getWords().get("б").get(Wordogram.TOKEN_END));
+        assertEquals(1, wordogram.getWords().get("б").size());
+
+        // training goes on after pruning
+        addAll(wordogram, "а д .");
+        assertEquals(1, (int) wordogram.getWords().get("а").get("д"));
+    }
+
+    @Test
+    public void testReverse() {
+        Wordogram wordogram = new Wordogram(2);
+        addAll(wordogram, "я иду домой . ты иду гулять . я иду домой .");
+
+        ChainModel reverse = wordogram.toModel().getReverse();
+        int[] history = {reverse.getId("иду"), reverse.getId("домой")};
+        int state = reverse.findState(history, 2);
+
+        // words preceding "иду домой"
+        assertTrue(state >= reverse.size());
+        assertEquals(1, reverse.getSuccessorCount(state));
+        assertEquals(2, getWeight(reverse, state, "я"));
+
+        // words preceding "иду"
+        assertEquals(2, getWeight(reverse, reverse.getId("иду"), "я"));
+        assertEquals(1, getWeight(reverse, reverse.getId("иду"), "ты"));
+        assertEquals(2, getWeight(reverse, reverse.getId("я"), Wordogram.TOKEN_END));
+        assertEquals(3, getWeight(reverse, reverse.getId(Wordogram.TOKEN_END), "домой") +
+                getWeight(reverse, reverse.getId(Wordogram.TOKEN_END), "гулять"));
+    }
+
+    @Test
+    public void testOffHeap() {
+        Wordogram heap = new Wordogram(3, Storage.HEAP);
+        Wordogram offHeap = new Wordogram(3, Storage.OFF_HEAP);
+        Random random = new Random(7);
+        String[] words = {"я", "иду", "домой", "ты", "гулять", Wordogram.TOKEN_END};
+
+        for (int i = 0; i < 20000; i++) {
+            String word = words[random.nextInt(words.length)];
+            heap.addNext(word);
+            offHeap.addNext(word);
+        }
+
+        assertEquals(heap.getWords(), offHeap.getWords());
+        assertEquals(heap.getContextCount(), offHeap.getContextCount());
+
+        ChainModel model = offHeap.toModel();
+
+        assertTrue(model.getOffsets().isDirect());
+        assertTrue(model.getContextKeys().isDirect());
+        assertEquals(heap.toModel().findState(new int[]{1, 2, 3}, 3), model.findState(new int[]{1, 2, 3}, 3));
+
+        offHeap.prune(new PruneOptions(2, 0, 0));
+        assertEquals(Storage.OFF_HEAP, offHeap.getStorage());
+        assertTrue(offHeap.toModel().getSuccessors().isDirect());
+    }
+
+    private static int getWeight(ChainModel model, int state, String word) {
+        for (int i = 0; i < model.getSuccessorCount(state); i++) {
+            if (model.getSuccessor(state, i) == model.getId(word)) {
+                return model.getSuccessorWeight(state, i);
+            }
+        }
+
+        return 0;
+    }
+
+    private static void addAll(Wordogram wordogram, String text) {
+        for (String word : text.split(" ")) {
+            wordogram.addNext(word);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package io.arusland.text.server;
+
+import io.arusland.text.markov.ChainModel;
+import io.arusland.text.markov.Generator;
+import io.arusland.text.markov.Wordogram;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class GenerationServerTest {
+    private static final String[] WORDS = {"цепь", "маркова", "последовательность", "случайных", "событий",
+            "с", "конечным", "или", "счётным", "числом", "исходов"};
+    private ChainModel model;
+    private GenerationServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        Wordogram wordogram = new Wordogram(2);
+        Random random = new Random(1);
+
+        for (int i = 0; i < 10000; i++) {
+            wordogram.addNext(random.nextInt(8) == 0 ? Wordogram.TOKEN_END : WORDS[random.nextInt(WORDS.length)]);
+        }
+
+        model = wordogram.toModel();
+        server = new GenerationServer(() -> model, 2);
+        server.start(0);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        Response response = get("/generate?max=50&first=" + URLEncoder.encode("Маркова", "UTF-8"));
+
+        assertEquals(200, response.status);
+        assertTrue(response.body.startsWith("Маркова"));
+        assertTrue(response.body.length() <= 50);
+
+        assertEquals(400, get("/generate?max=0").status);
+        assertEquals(400, get("/generate?max=abc").status);
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        try {
+            List<Future<Response>> responses = new ArrayList<>();
+
+            for (int i = 0; i < 500; i++) {
+                int charCountMax = 20 + i % 100;
+                responses.add(executor.submit(() -> get("/generate?max=" + charCountMax)));
+            }
+
+            for (int i = 0; i < responses.size(); i++) {
+                Response response = responses.get(i).get();
+
+                assertEquals(200, response.status);
+                assertTrue(!response.body.isEmpty() && response.body.length() <= 20 + i % 100);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        Response response = get("/stats/" + URLEncoder.encode("Маркова", "UTF-8") + "?limit=3");
+
+        assertEquals(200, response.status);
+        int count = model.getStatsIndex().getCount(model.getId("маркова"));
+        assertTrue(response.body.startsWith("{\"word\":\"маркова\",\"count\":" + count + ",\"nextCount\":"));
+        assertEquals(3, response.body.split("\\{\"word\"").length - 2);
+
+        assertEquals(404, get("/stats/" + URLEncoder.encode("марков", "UTF-8")).status);
+
+        Response page = get("/stats/" + URLEncoder.encode("Маркова", "UTF-8") + "?limit=2&offset=1");
+        // the second page starts with the second next word of the first one
+        assertTrue(response.body.contains(page.body.substring(page.body.indexOf("\"next\":[") + 8,
+                page.body.indexOf('}', page.body.indexOf("\"next\":[")))));
+
+        Response top = get("/top?limit=5");
+
+        assertEquals(200, top.status);
+        assertTrue(top.body, top.body.startsWith("{\"wordCount\":"));
+        assertEquals(5, top.body.split("\\{\"word\"").length - 1);
+    }
+
+    @Test
+    public void testGenerators() throws Exception {
+        server.stop();
+        AtomicInteger batches = new AtomicInteger();
+        Generator generator = new Generator(model, Generator.secureRandoms());
+        server = new GenerationServer(() -> model, () -> {
+            batches.incrementAndGet();
+            return generator;
+        }, 1);
+        server.start(0);
+
+        assertEquals(200, get("/generate?max=50").status);
+        assertEquals(1, batches.get());
+
+        // a failing generator is an error of the server, not a busy one
+        server.stop();
+        server = new GenerationServer(() -> model, () -> {
+            throw new IllegalStateException("No model");
+        }, 1);
+        server.start(0);
+        Response response = get("/generate?max=50");
+
+        assertEquals(500, response.status);
+        assertTrue(response.body, response.body.contains("No model"));
+    }
+
+    private Response get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path)
+                .openConnection();
+
+        try {
+            int status = connection.getResponseCode();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+            try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                byte[] buffer = new byte[4096];
+                int read;
+
+                while ((read = in.read(buffer)) > 0) {
+                    body.write(buffer, 0, read);
+                }
+            }
+
+            return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package io.arusland.text.shard;
+
+import io.arusland.text.markov.GenerationOptions;
+import io.arusland.text.markov.Wordogram;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @since 2026-10-18
+ */
+public class ShardedModelTest {
+    private static final String[] WORDS = {"цепь", "маркова", "последовательность", "случайных", "событий",
+            "с", "конечным", "или", "счётным", "числом", "исходов", "москва", "и", "в", "андрей"};
+
+    @Test
+    public void testTrainAndGenerate() throws Exception {
+        Wordogram local = new Wordogram(2);
+
+        try (ShardedModel sharded = ShardedModel.startLocal(3, 2)) {
+            Random random = new Random(3);
+
+            for (int i = 0; i < 20000; i++) {
+                String word = random.nextInt(8) == 0 ? Wordogram.TOKEN_END : WORDS[random.nextInt(WORDS.length)];
+                local.addNext(word);
+                sharded.addNext(word);
+            }
+
+            assertEquals(3, sharded.getShardCount());
+            assertEquals(local.getVocabulary().size(), sharded.size());
+            assertEquals(local.getStateCount() + local.getContextCount(), sharded.compile());
+
+            List<GenerationOptions> batch = new ArrayList<>();
+
+            for (int i = 0; i < 200; i++) {
+                batch.add(new GenerationOptions(60 + i, i % 4 == 0 ? "Маркова" : null, i % 2 == 0));
+            }
+
+            List<String> texts = sharded.generate(batch);
+            Map<String, Map<String, Integer>> transitions = local.getWords();
+
+            for (int i = 0; i < texts.size(); i++) {
+                String text = texts.get(i);
+
+                assertTrue(text, text.length() <= batch.get(i).getCharCountMax() && text.length() > 20);
+                assertTrue(batch.get(i).getFirstWord() == null || text.startsWith("Маркова"));
+
+                // every pair of neighbour words was seen in training
+                for (String sentence : text.toLowerCase().split("\\.")) {
+                    String[] words = sentence.trim().split(" ");
+
+                    for (int j = 1; j < words.length; j++) {
+                        Map<String, Integer> next = transitions.get(words[j - 1]);
+                        assertNotNull(text, next);
+                        assertTrue(text, next.containsKey(words[j]));
+                    }
+                }
+            }
+
+            assertTrue(sharded.generate(new GenerationOptions(100, "Колмогоров", true)).startsWith("Колмогоров"));
+        }
+    }
+
+    @Test
+    public void testWordAddedAfterCompile() throws Exception {
+        // states of one word only, so the id of a new word is past all states of a compiled model
+        try (ShardedModel sharded = ShardedModel.startLocal(2, 1)) {
+            Random random = new Random(5);
+
+            for (int i = 0; i < 2000; i++) {
+                sharded.addNext(random.nextInt(8) == 0 ? Wordogram.TOKEN_END : WORDS[random.nextInt(WORDS.length)]);
+            }
+
+            sharded.compile();
+            sharded.addNext("колмогоров");
+            sharded.addNext("изучал");
+            sharded.addEndWord();
+
+            // the new words are not in the compiled models yet, so the seed is unknown to them
+            String text = sharded.generate(new GenerationOptions(100, "Колмогоров", true));
+            assertTrue(text, text.startsWith("Колмогоров") && text.length() > 20);
+            assertTrue(sharded.generate(new GenerationOptions(100, "изучал", true)).startsWith("Изучал"));
+
+            sharded.compile();
+            assertTrue(sharded.generate(new GenerationOptions(100, "Колмогоров", true)).startsWith("Колмогоров изучал"));
+        }
+    }
+}